@@ -74,13 +74,14 @@ export const api = {
   createMaterial: (token, payload) => request("/materials", { method: "POST", token, body: payload }),
   updateMaterial: (token, id, payload) => request(`/materials/${id}`, { method: "PUT", token, body: payload }),
   deleteMaterial: (token, id) => request(`/materials/${id}`, { method: "DELETE", token }),
-  importMaterials: (token, file) => {
+  submitMaterialImport: (token, file) => {
     const form = new FormData();
     form.append("file", file);
-    return request("/materials/import", { method: "POST", token, body: form });
+    return request("/jobs/material-import", { method: "POST", token, body: form });
   },
-  exportMaterials: (token) =>
-    request("/materials/export", { token, responseType: "blob" }),
+  submitMaterialExport: (token) => request("/jobs/material-export", { method: "POST", token }),
+  job: (token, id) => request(`/jobs/${id}`, { token }),
+  jobResult: (token, id) => request(`/jobs/${id}/result`, { token, responseType: "blob" }),
   createInward: (token, payload) => request("/inwards", { method: "POST", token, body: payload }),
   createOutward: (token, payload) => request("/outwards", { method: "POST", token, body: payload }),
   updateOutward: (token, id, payload) => request(`/outwards/${id}`, { method: "PUT", token, body: payload }),
@@ -197,7 +197,7 @@ export default function MaterialDirectoryPage({ onRequestReload }) {
       link.remove();
       window.URL.revokeObjectURL(url);
     } catch (err) {
-      toast.error(err.message);
+      toast.error(err || "Unable to export materials");
     } finally {
       setExporting(false);
     }
@@ -210,12 +210,17 @@ export default function MaterialDirectoryPage({ onRequestReload }) {
     if (!file) return;
     setImporting(true);
     try {
-      await dispatch(importMaterials({ token, file })).unwrap();
-      toast.success("Materials imported");
+      const result = await dispatch(importMaterials({ token, file })).unwrap();
+      const imported = (result?.createdCount ?? 0) + (result?.updatedCount ?? 0);
+      toast.success(`${imported} materials imported`);
+      if (result?.failedCount) {
+        const first = result.errors?.[0];
+        toast.error(`${result.failedCount} rows skipped${first ? ` (row ${first.row}: ${first.message})` : ""}`);
+      }
       await refreshMaterials();
       onRequestReload?.();
     } catch (err) {
-      toast.error(err.message);
+      toast.error(err || "Unable to import materials");
     } finally {
       setImporting(false);
       event.target.value = "";
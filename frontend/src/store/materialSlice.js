@@ -72,11 +72,27 @@ export const deleteMaterial = createAsyncThunk(
   }
 );
 
+const JOB_POLL_MS = 1000;
+
+// Imports and exports run as background jobs; poll until the job leaves QUEUED/RUNNING
+const waitForJob = async (token, job) => {
+  let current = job;
+  while (current.status === "QUEUED" || current.status === "RUNNING") {
+    await new Promise((resolve) => setTimeout(resolve, JOB_POLL_MS));
+    current = await api.job(token, current.id);
+  }
+  if (current.status !== "SUCCEEDED") {
+    throw new Error(current.message || "The job failed");
+  }
+  return current;
+};
+
 export const exportMaterials = createAsyncThunk(
   "materials/export",
   async (token, { rejectWithValue }) => {
     try {
-      return await api.exportMaterials(token);
+      const job = await waitForJob(token, await api.submitMaterialExport(token));
+      return await api.jobResult(token, job.id);
     } catch (err) {
       return rejectWithValue(err.message || "Unable to export materials");
     }
@@ -87,7 +103,7 @@ export const importMaterials = createAsyncThunk(
   "materials/import",
   async ({ token, file }, { rejectWithValue }) => {
     try {
-      return await api.importMaterials(token, file);
+      return await waitForJob(token, await api.submitMaterialImport(token, file));
     } catch (err) {
       return rejectWithValue(err.message || "Unable to import materials");
     }
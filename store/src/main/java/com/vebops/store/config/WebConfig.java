@@ -34,7 +34,7 @@ public class WebConfig {
         }
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
-        configuration.setExposedHeaders(List.of("X-Auth-Token"));
+        configuration.setExposedHeaders(List.of("X-Auth-Token", "ETag", "Idempotent-Replayed"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -1,6 +1,8 @@
 package com.vebops.store.controller;
 
 import com.vebops.store.dto.AnalyticsDto;
+import com.vebops.store.dto.BalanceRebuildResponse;
+import com.vebops.store.dto.MetricDto;
 import com.vebops.store.dto.CreateProjectRequest;
 import com.vebops.store.dto.CreateUserRequest;
 import com.vebops.store.dto.PaginatedResponse;
@@ -13,8 +15,13 @@ import com.vebops.store.model.Role;
 import com.vebops.store.model.UserAccount;
 import com.vebops.store.service.AdminService;
 import com.vebops.store.service.AuthService;
+import com.vebops.store.service.ProjectMaterialBalanceService;
+import com.vebops.store.service.RuntimeMetrics;
+import com.vebops.store.service.StockJournalService;
+import java.time.LocalDate;
 import java.util.List;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -32,10 +39,22 @@ public class AdminController {
 
     private final AuthService authService;
     private final AdminService adminService;
-
-    public AdminController(AuthService authService, AdminService adminService) {
+    private final ProjectMaterialBalanceService balanceService;
+    private final RuntimeMetrics runtimeMetrics;
+    private final StockJournalService stockJournalService;
+
+    public AdminController(
+        AuthService authService,
+        AdminService adminService,
+        ProjectMaterialBalanceService balanceService,
+        RuntimeMetrics runtimeMetrics,
+        StockJournalService stockJournalService
+    ) {
         this.authService = authService;
         this.adminService = adminService;
+        this.balanceService = balanceService;
+        this.runtimeMetrics = runtimeMetrics;
+        this.stockJournalService = stockJournalService;
     }
 
     @GetMapping("/projects")
@@ -45,10 +64,12 @@ public class AdminController {
         @RequestParam(name = "size", defaultValue = "10") int size,
         @RequestParam(name = "search", required = false) String search,
         @RequestParam(name = "startsWith", required = false) List<String> prefixes,
-        @RequestParam(name = "allocation", required = false) String allocation
+        @RequestParam(name = "allocation", required = false) String allocation,
+        @RequestParam(name = "after", required = false) String after,
+        @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal
     ) {
         ensureAdmin(token);
-        return adminService.searchProjects(search, prefixes, allocation, page, size);
+        return adminService.searchProjects(search, prefixes, allocation, page, size, after, includeTotal);
     }
 
     @GetMapping("/projects/search")
@@ -58,9 +79,11 @@ public class AdminController {
         @RequestParam(name = "size", defaultValue = "10") int size,
         @RequestParam(name = "search", required = false) String search,
         @RequestParam(name = "startsWith", required = false) List<String> prefixes,
-        @RequestParam(name = "allocation", required = false) String allocation
+        @RequestParam(name = "allocation", required = false) String allocation,
+        @RequestParam(name = "after", required = false) String after,
+        @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal
     ) {
-        return projects(token, page, size, search, prefixes, allocation);
+        return projects(token, page, size, search, prefixes, allocation, after, includeTotal);
     }
 
     @PostMapping("/projects")
@@ -96,10 +119,12 @@ public class AdminController {
         @RequestParam(name = "search", required = false) String search,
         @RequestParam(name = "role", required = false) List<String> roles,
         @RequestParam(name = "accessType", required = false) List<String> accessTypes,
-        @RequestParam(name = "projectId", required = false) List<String> projectIds
+        @RequestParam(name = "projectId", required = false) List<String> projectIds,
+        @RequestParam(name = "after", required = false) String after,
+        @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal
     ) {
         ensureAdmin(token);
-        return adminService.searchUsers(authService, search, roles, accessTypes, projectIds, page, size);
+        return adminService.searchUsers(authService, search, roles, accessTypes, projectIds, page, size, after, includeTotal);
     }
 
     @GetMapping("/users/search")
@@ -110,9 +135,11 @@ public class AdminController {
         @RequestParam(name = "search", required = false) String search,
         @RequestParam(name = "role", required = false) List<String> roles,
         @RequestParam(name = "accessType", required = false) List<String> accessTypes,
-        @RequestParam(name = "projectId", required = false) List<String> projectIds
+        @RequestParam(name = "projectId", required = false) List<String> projectIds,
+        @RequestParam(name = "after", required = false) String after,
+        @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal
     ) {
-        return listUsers(token, page, size, search, roles, accessTypes, projectIds);
+        return listUsers(token, page, size, search, roles, accessTypes, projectIds, after, includeTotal);
     }
 
     @PostMapping("/users")
@@ -143,6 +170,35 @@ public class AdminController {
         return adminService.analytics();
     }
 
+    @PostMapping("/balances/rebuild")
+    public BalanceRebuildResponse rebuildBalances(@RequestHeader("X-Auth-Token") String token) {
+        ensureAdmin(token);
+        return new BalanceRebuildResponse(balanceService.rebuild());
+    }
+
+    @PostMapping("/stock-journal/rebuild")
+    public BalanceRebuildResponse rebuildStockJournal(@RequestHeader("X-Auth-Token") String token) {
+        ensureAdmin(token);
+        return new BalanceRebuildResponse(stockJournalService.rebuild());
+    }
+
+    /** Takes the missing month-end snapshots up to {@code upTo}, by default the end of last month. */
+    @PostMapping("/stock-snapshots")
+    public BalanceRebuildResponse takeStockSnapshots(
+        @RequestHeader("X-Auth-Token") String token,
+        @RequestParam(name = "upTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate upTo
+    ) {
+        ensureAdmin(token);
+        LocalDate closing = upTo != null ? upTo : LocalDate.now().withDayOfMonth(1).minusDays(1);
+        return new BalanceRebuildResponse(stockJournalService.checkpoint(closing));
+    }
+
+    @GetMapping("/metrics")
+    public List<MetricDto> metrics(@RequestHeader("X-Auth-Token") String token) {
+        ensureAdmin(token);
+        return runtimeMetrics.snapshot();
+    }
+
     private void ensureAdmin(String token) {
         UserAccount user = authService.requireUser(token);
         if (user.getRole() != Role.ADMIN && user.getRole() != Role.CEO && user.getRole() != Role.COO) {
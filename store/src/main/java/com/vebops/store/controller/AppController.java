@@ -1,17 +1,27 @@
 package com.vebops.store.controller;
 
-import com.vebops.store.dto.AppBootstrapResponse;
+import com.vebops.store.dto.AppChangesResponse;
 import com.vebops.store.dto.InwardRecordDto;
 import com.vebops.store.dto.MaterialMovementDto;
 import com.vebops.store.model.UserAccount;
 import com.vebops.store.service.AppDataService;
 import com.vebops.store.service.AuthService;
+import com.vebops.store.service.BootstrapCache;
+import com.vebops.store.service.BootstrapStreamWriter;
+import java.time.LocalDate;
 import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/app")
@@ -19,33 +29,76 @@ public class AppController {
 
     private final AuthService authService;
     private final AppDataService appDataService;
+    private final BootstrapStreamWriter bootstrapStreamWriter;
+    private final BootstrapCache bootstrapCache;
 
-    public AppController(AuthService authService, AppDataService appDataService) {
+    public AppController(
+        AuthService authService,
+        AppDataService appDataService,
+        BootstrapStreamWriter bootstrapStreamWriter,
+        BootstrapCache bootstrapCache
+    ) {
         this.authService = authService;
         this.appDataService = appDataService;
+        this.bootstrapStreamWriter = bootstrapStreamWriter;
+        this.bootstrapCache = bootstrapCache;
     }
 
     @GetMapping("/bootstrap")
-    public AppBootstrapResponse bootstrap(@RequestHeader("X-Auth-Token") String token) {
+    public ResponseEntity<byte[]> bootstrap(@RequestHeader("X-Auth-Token") String token, WebRequest request) {
+        UserAccount user = authService.requireUser(token);
+        BootstrapCache.Entry payload = bootstrapCache.obtain(user, () -> appDataService.bootstrap(user));
+        if (request.checkNotModified(payload.etag())) {
+            return null;
+        }
+        return ResponseEntity
+            .ok()
+            .eTag(payload.etag())
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(payload.body());
+    }
+
+    @GetMapping("/bootstrap/stream")
+    public ResponseEntity<StreamingResponseBody> bootstrapStream(@RequestHeader("X-Auth-Token") String token) {
+        UserAccount user = authService.requireUser(token);
+        BootstrapStreamWriter.Scope scope = bootstrapStreamWriter.scopeFor(user);
+        StreamingResponseBody body = out -> bootstrapStreamWriter.write(scope, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping("/changes")
+    public AppChangesResponse changes(
+        @RequestHeader("X-Auth-Token") String token,
+        @RequestParam("since") Long since
+    ) {
         UserAccount user = authService.requireUser(token);
-        return appDataService.bootstrap(user);
+        return appDataService.changes(user, since);
     }
 
     @GetMapping("/materials/{materialId}/inwards")
     public List<InwardRecordDto> materialInwardHistory(
         @RequestHeader("X-Auth-Token") String token,
-        @PathVariable Long materialId
+        @PathVariable Long materialId,
+        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(name = "page", required = false) Integer page,
+        @RequestParam(name = "size", required = false) Integer size
     ) {
         UserAccount user = authService.requireUser(token);
-        return appDataService.materialInwardHistory(user, materialId);
+        return appDataService.materialInwardHistory(user, materialId, from, to, page, size);
     }
 
     @GetMapping("/materials/{materialId}/movements")
     public MaterialMovementDto materialMovementHistory(
         @RequestHeader("X-Auth-Token") String token,
-        @PathVariable Long materialId
+        @PathVariable Long materialId,
+        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(name = "page", required = false) Integer page,
+        @RequestParam(name = "size", required = false) Integer size
     ) {
         UserAccount user = authService.requireUser(token);
-        return appDataService.materialMovementHistory(user, materialId);
+        return appDataService.materialMovementHistory(user, materialId, from, to, page, size);
     }
 }
@@ -4,9 +4,15 @@ import com.vebops.store.dto.InventoryCodesResponse;
 import com.vebops.store.dto.InwardRequest;
 import com.vebops.store.dto.OutwardRequest;
 import com.vebops.store.dto.OutwardUpdateRequest;
+import com.vebops.store.dto.ProjectBalancesResponse;
 import com.vebops.store.dto.TransferRequest;
+import com.vebops.store.model.UserAccount;
 import com.vebops.store.service.AuthService;
+import com.vebops.store.service.IdempotencyService;
 import com.vebops.store.service.InventoryService;
+import com.vebops.store.service.ProjectBalanceService;
+import java.time.LocalDate;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,18 +21,30 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/api")
 public class InventoryController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final InventoryService inventoryService;
     private final AuthService authService;
+    private final IdempotencyService idempotencyService;
+    private final ProjectBalanceService projectBalanceService;
 
-    public InventoryController(InventoryService inventoryService, AuthService authService) {
+    public InventoryController(
+        InventoryService inventoryService,
+        AuthService authService,
+        IdempotencyService idempotencyService,
+        ProjectBalanceService projectBalanceService
+    ) {
         this.inventoryService = inventoryService;
         this.authService = authService;
+        this.idempotencyService = idempotencyService;
+        this.projectBalanceService = projectBalanceService;
     }
 
     @GetMapping("/inventory/codes")
@@ -35,18 +53,38 @@ public class InventoryController {
         return inventoryService.generateCodes();
     }
 
+    @GetMapping("/projects/{id}/balances")
+    public ProjectBalancesResponse projectBalances(
+        @RequestHeader("X-Auth-Token") String token,
+        @PathVariable Long id,
+        @RequestParam(name = "asOf", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf
+    ) {
+        UserAccount user = authService.requireUser(token);
+        return projectBalanceService.balancesAsOf(user, id, asOf);
+    }
+
     @PostMapping("/inwards")
-    public ResponseEntity<Void> createInward(@RequestHeader("X-Auth-Token") String token, @RequestBody InwardRequest request) {
-        authService.requireUser(token);
-        inventoryService.registerInward(request);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Void> createInward(
+        @RequestHeader("X-Auth-Token") String token,
+        @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+        @RequestBody InwardRequest request
+    ) {
+        UserAccount user = authService.requireUser(token);
+        return completed(
+            idempotencyService.execute(user, idempotencyKey, "INWARD", request, () -> inventoryService.registerInward(request))
+        );
     }
 
     @PostMapping("/outwards")
-    public ResponseEntity<Void> createOutward(@RequestHeader("X-Auth-Token") String token, @RequestBody OutwardRequest request) {
-        authService.requireUser(token);
-        inventoryService.registerOutward(request);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Void> createOutward(
+        @RequestHeader("X-Auth-Token") String token,
+        @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+        @RequestBody OutwardRequest request
+    ) {
+        UserAccount user = authService.requireUser(token);
+        return completed(
+            idempotencyService.execute(user, idempotencyKey, "OUTWARD", request, () -> inventoryService.registerOutward(request))
+        );
     }
 
     @PutMapping("/outwards/{id}")
@@ -63,10 +101,16 @@ public class InventoryController {
     @PostMapping("/transfers")
     public ResponseEntity<Void> createTransfer(
         @RequestHeader("X-Auth-Token") String token,
+        @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
         @RequestBody TransferRequest request
     ) {
-        authService.requireUser(token);
-        inventoryService.registerTransfer(request);
-        return ResponseEntity.ok().build();
+        UserAccount user = authService.requireUser(token);
+        return completed(
+            idempotencyService.execute(user, idempotencyKey, "TRANSFER", request, () -> inventoryService.registerTransfer(request))
+        );
+    }
+
+    private ResponseEntity<Void> completed(boolean replayed) {
+        return replayed ? ResponseEntity.ok().header("Idempotent-Replayed", "true").build() : ResponseEntity.ok().build();
     }
 }
@@ -0,0 +1,74 @@
+package com.vebops.store.controller;
+
+import com.vebops.store.dto.JobDto;
+import com.vebops.store.model.Role;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.service.AuthService;
+import com.vebops.store.service.JobService;
+import java.util.List;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+
+    private final JobService jobService;
+    private final AuthService authService;
+
+    public JobController(JobService jobService, AuthService authService) {
+        this.jobService = jobService;
+        this.authService = authService;
+    }
+
+    @PostMapping(value = "/material-import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<JobDto> submitMaterialImport(
+        @RequestHeader("X-Auth-Token") String token,
+        @RequestParam("file") MultipartFile file
+    ) {
+        UserAccount user = authService.requireRole(token, Role.ADMIN, Role.CEO, Role.COO, Role.PROJECT_HEAD);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submitMaterialImport(user, file));
+    }
+
+    @PostMapping("/material-export")
+    public ResponseEntity<JobDto> submitMaterialExport(@RequestHeader("X-Auth-Token") String token) {
+        UserAccount user = authService.requireUser(token);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submitMaterialExport(user));
+    }
+
+    @GetMapping
+    public List<JobDto> recent(@RequestHeader("X-Auth-Token") String token) {
+        return jobService.recent(authService.requireUser(token));
+    }
+
+    @GetMapping("/{id}")
+    public JobDto get(@RequestHeader("X-Auth-Token") String token, @PathVariable Long id) {
+        return jobService.get(authService.requireUser(token), id);
+    }
+
+    @GetMapping("/{id}/result")
+    public ResponseEntity<Resource> result(@RequestHeader("X-Auth-Token") String token, @PathVariable Long id) {
+        JobService.JobResult result = jobService.result(authService.requireUser(token), id);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(
+            result.fileName().endsWith(".xlsx")
+                ? MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                : MediaType.APPLICATION_OCTET_STREAM
+        );
+        headers.setContentDispositionFormData("attachment", result.fileName());
+        return new ResponseEntity<>(new FileSystemResource(result.path()), headers, HttpStatus.OK);
+    }
+}
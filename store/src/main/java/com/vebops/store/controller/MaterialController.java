@@ -1,7 +1,9 @@
 package com.vebops.store.controller;
 
 import com.vebops.store.dto.MaterialDto;
+import com.vebops.store.dto.MaterialImportResult;
 import com.vebops.store.dto.MaterialRequest;
+import com.vebops.store.dto.MaterialSearchHit;
 import com.vebops.store.dto.PaginatedResponse;
 import com.vebops.store.model.Role;
 import com.vebops.store.service.AuthService;
@@ -19,6 +21,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -47,10 +50,12 @@ public class MaterialController {
         @RequestParam(name = "search", required = false) String search,
         @RequestParam(name = "category", required = false) List<String> categories,
         @RequestParam(name = "unit", required = false) List<String> units,
-        @RequestParam(name = "lineType", required = false) List<String> lineTypes
+        @RequestParam(name = "lineType", required = false) List<String> lineTypes,
+        @RequestParam(name = "after", required = false) String after,
+        @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal
     ) {
         authService.requireUser(token);
-        return materialService.search(search, categories, units, lineTypes, page, size);
+        return materialService.search(search, categories, units, lineTypes, page, size, after, includeTotal);
     }
 
     @GetMapping("/search")
@@ -61,9 +66,23 @@ public class MaterialController {
         @RequestParam(name = "search", required = false) String search,
         @RequestParam(name = "category", required = false) List<String> categories,
         @RequestParam(name = "unit", required = false) List<String> units,
-        @RequestParam(name = "lineType", required = false) List<String> lineTypes
+        @RequestParam(name = "lineType", required = false) List<String> lineTypes,
+        @RequestParam(name = "after", required = false) String after,
+        @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal
     ) {
-        return list(token, page, size, search, categories, units, lineTypes);
+        return list(token, page, size, search, categories, units, lineTypes, after, includeTotal);
+    }
+
+    @GetMapping("/fulltext")
+    public PaginatedResponse<MaterialSearchHit> fullText(
+        @RequestHeader("X-Auth-Token") String token,
+        @RequestParam(name = "q") String query,
+        @RequestParam(name = "mode", defaultValue = "natural") String mode,
+        @RequestParam(name = "page", defaultValue = "1") int page,
+        @RequestParam(name = "size", defaultValue = "10") int size
+    ) {
+        authService.requireUser(token);
+        return materialService.fullTextSearch(query, mode, page, size);
     }
 
     @PostMapping
@@ -91,8 +110,10 @@ public class MaterialController {
         materialService.delete(id);
     }
 
+    /** @deprecated runs on the request thread; submit {@code POST /api/jobs/material-import} instead. */
+    @Deprecated
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public List<MaterialDto> importMaterials(
+    public MaterialImportResult importMaterials(
         @RequestHeader("X-Auth-Token") String token,
         @RequestParam("file") MultipartFile file
     ) {
@@ -100,20 +121,20 @@ public class MaterialController {
         return materialService.importMaterials(file);
     }
 
+    /** @deprecated runs on the request thread; submit {@code POST /api/jobs/material-export} instead. */
+    @Deprecated
     @GetMapping(value = "/export", produces = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-    public ResponseEntity<byte[]> exportMaterials(@RequestHeader("X-Auth-Token") String token) {
+    public ResponseEntity<StreamingResponseBody> exportMaterials(@RequestHeader("X-Auth-Token") String token) {
         authService.requireUser(token);
 
-        byte[] bytes = materialService.exportMaterials();
-
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(
             MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
         );
         headers.setContentDispositionFormData("attachment", "materials.xlsx");
-        headers.setContentLength(bytes.length);
 
-        return new ResponseEntity<>(bytes, headers, HttpStatus.OK);
+        StreamingResponseBody body = materialService::exportMaterials;
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
 }
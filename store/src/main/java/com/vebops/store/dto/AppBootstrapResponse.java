@@ -13,5 +13,6 @@ public record AppBootstrapResponse(
     List<OutwardRegisterDto> outwardHistory,
     List<TransferRecordDto> transferHistory,
     List<ProcurementRequestDto> procurementRequests,
-    InventoryCodesResponse inventoryCodes
+    InventoryCodesResponse inventoryCodes,
+    long changeVersion
 ) {}
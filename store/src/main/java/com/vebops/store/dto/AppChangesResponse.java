@@ -0,0 +1,18 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+public record AppChangesResponse(
+    long version,
+    boolean hasMore,
+    boolean resyncRequired,
+    List<ProjectDto> projects,
+    List<MaterialDto> materials,
+    List<BomLineDto> bom,
+    List<InwardRecordDto> inwardHistory,
+    List<OutwardRegisterDto> outwardHistory,
+    List<TransferRecordDto> transferHistory,
+    List<ProcurementRequestDto> procurementRequests,
+    List<ChangeTombstoneDto> deleted,
+    InventoryCodesResponse inventoryCodes
+) {}
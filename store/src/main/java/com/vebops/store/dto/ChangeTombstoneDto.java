@@ -0,0 +1,3 @@
+package com.vebops.store.dto;
+
+public record ChangeTombstoneDto(String type, String id, String projectId) {}
@@ -0,0 +1,19 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+public record JobDto(
+    String id,
+    String type,
+    String status,
+    long processedCount,
+    long createdCount,
+    long updatedCount,
+    long failedCount,
+    List<MaterialImportError> errors,
+    String message,
+    boolean resultAvailable,
+    String createdAt,
+    String startedAt,
+    String finishedAt
+) {}
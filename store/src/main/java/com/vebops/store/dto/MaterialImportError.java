@@ -0,0 +1,3 @@
+package com.vebops.store.dto;
+
+public record MaterialImportError(int row, String message) {}
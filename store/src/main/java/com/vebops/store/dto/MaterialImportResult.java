@@ -0,0 +1,10 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+public record MaterialImportResult(
+    int created,
+    int updated,
+    int failed,
+    List<MaterialImportError> errors
+) {}
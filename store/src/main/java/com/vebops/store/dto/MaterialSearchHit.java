@@ -0,0 +1,3 @@
+package com.vebops.store.dto;
+
+public record MaterialSearchHit(MaterialDto material, double score) {}
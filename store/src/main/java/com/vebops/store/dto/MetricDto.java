@@ -0,0 +1,3 @@
+package com.vebops.store.dto;
+
+public record MetricDto(String name, long count, double totalMillis, double avgMillis, double maxMillis) {}
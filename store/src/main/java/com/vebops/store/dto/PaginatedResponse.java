@@ -3,6 +3,11 @@ package com.vebops.store.dto;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * A page of results. Offset pages carry page numbers and totals; cursor pages (requested with
+ * {@code after}) report page 0 and a total of -1 unless the caller asked for the count, and
+ * {@code hasPrevious} says whether any matching row sorts before the cursor.
+ */
 public record PaginatedResponse<T>(
     List<T> items,
     long totalItems,
@@ -11,5 +16,35 @@ public record PaginatedResponse<T>(
     int totalPages,
     boolean hasNext,
     boolean hasPrevious,
-    Map<String, List<String>> filters
-) {}
+    Map<String, List<String>> filters,
+    Map<String, Map<String, Long>> facetCounts,
+    String nextCursor
+) {
+    public PaginatedResponse(
+        List<T> items,
+        long totalItems,
+        int page,
+        int size,
+        int totalPages,
+        boolean hasNext,
+        boolean hasPrevious,
+        Map<String, List<String>> filters
+    ) {
+        this(items, totalItems, page, size, totalPages, hasNext, hasPrevious, filters, Map.of(), null);
+    }
+
+    public static <T> PaginatedResponse<T> afterCursor(
+        List<T> items,
+        Long totalItems,
+        int size,
+        boolean hasNext,
+        boolean hasPrevious,
+        Map<String, List<String>> filters,
+        Map<String, Map<String, Long>> facetCounts,
+        String nextCursor
+    ) {
+        long total = totalItems != null ? totalItems : -1;
+        int totalPages = totalItems != null ? (int) ((totalItems + size - 1) / size) : -1;
+        return new PaginatedResponse<>(items, total, 0, size, totalPages, hasNext, hasPrevious, filters, facetCounts, nextCursor);
+    }
+}
@@ -0,0 +1,12 @@
+package com.vebops.store.dto;
+
+public record ProjectBalanceDto(
+    String materialId,
+    String code,
+    String name,
+    String unit,
+    double orderedQty,
+    double receivedQty,
+    double issuedQty,
+    double balanceQty
+) {}
@@ -0,0 +1,9 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+public record ProjectBalancesResponse(
+    String projectId,
+    String asOf,
+    List<ProjectBalanceDto> balances
+) {}
@@ -8,13 +8,22 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 
 @Entity
 @Table(name = "bom_lines")
 public class BomLine {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "bom_lines")
+    @TableGenerator(
+        name = "bom_lines",
+        table = IdGenerators.TABLE,
+        pkColumnName = IdGenerators.NAME_COLUMN,
+        pkColumnValue = "bom_lines",
+        valueColumnName = IdGenerators.VALUE_COLUMN,
+        allocationSize = IdGenerators.ALLOCATION_SIZE
+    )
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
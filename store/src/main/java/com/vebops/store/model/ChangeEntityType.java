@@ -0,0 +1,12 @@
+package com.vebops.store.model;
+
+public enum ChangeEntityType {
+    PROJECT,
+    MATERIAL,
+    BOM_LINE,
+    INWARD,
+    OUTWARD,
+    TRANSFER,
+    PROCUREMENT,
+    USER
+}
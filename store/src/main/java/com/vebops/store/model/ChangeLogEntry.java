@@ -0,0 +1,112 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * One row per changed entity. {@code version} is the change version handed to clients; all entries
+ * of one transaction share it and versions follow commit order, unlike the identity id, which is
+ * taken at insert. {@code BOM_LINE} entries are keyed by project and material, so {@code entityId}
+ * holds the material id.
+ */
+@Entity
+@Table(
+    name = "change_log",
+    indexes = {
+        @Index(name = "idx_change_log_version", columnList = "version, id"),
+        @Index(name = "idx_change_log_type_version", columnList = "entity_type, version")
+    }
+)
+public class ChangeLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private ChangeEntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    private Long projectId;
+
+    private Long relatedProjectId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ChangeOperation operation;
+
+    private LocalDateTime changedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public ChangeEntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(ChangeEntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public Long getRelatedProjectId() {
+        return relatedProjectId;
+    }
+
+    public void setRelatedProjectId(Long relatedProjectId) {
+        this.relatedProjectId = relatedProjectId;
+    }
+
+    public ChangeOperation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(ChangeOperation operation) {
+        this.operation = operation;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
@@ -0,0 +1,39 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Single-row counter behind the change log version. A writing transaction bumps it just before it
+ * commits and keeps the row locked until then, so versions are handed out in commit order.
+ */
+@Entity
+@Table(name = "change_log_versions")
+public class ChangeLogVersion {
+
+    public static final long ROW_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long currentVersion;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+
+    public void setCurrentVersion(long currentVersion) {
+        this.currentVersion = currentVersion;
+    }
+}
@@ -0,0 +1,63 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDate;
+
+/**
+ * Daily counter for a document prefix such as {@code INW}. {@code nextValue} is the first number not
+ * yet reserved by any node; numbers reserved but never used are simply skipped.
+ */
+@Entity
+@Table(
+    name = "document_sequences",
+    uniqueConstraints = @UniqueConstraint(name = "uk_document_sequence_prefix_date", columnNames = {"prefix", "seq_date"})
+)
+public class DocumentSequence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    private String prefix;
+
+    @Column(name = "seq_date", nullable = false)
+    private LocalDate seqDate;
+
+    @Column(nullable = false)
+    private long nextValue;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public LocalDate getSeqDate() {
+        return seqDate;
+    }
+
+    public void setSeqDate(LocalDate seqDate) {
+        this.seqDate = seqDate;
+    }
+
+    public long getNextValue() {
+        return nextValue;
+    }
+
+    public void setNextValue(long nextValue) {
+        this.nextValue = nextValue;
+    }
+}
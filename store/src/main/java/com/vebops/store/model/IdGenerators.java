@@ -0,0 +1,29 @@
+package com.vebops.store.model;
+
+import java.util.List;
+
+/**
+ * Shared settings of the table-backed id generators. Entities saved in bulk draw ids from
+ * {@code id_generators} in blocks instead of using identity columns, which would keep Hibernate
+ * from batching their inserts. Each entity uses its table name as the segment name.
+ */
+public final class IdGenerators {
+
+    public static final String TABLE = "id_generators";
+    public static final String NAME_COLUMN = "gen_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final List<String> SEGMENTS = List.of(
+        "bom_lines",
+        "materials",
+        "inward_lines",
+        "outward_lines",
+        "transfer_lines",
+        "project_material_balances",
+        "stock_movements",
+        "stock_snapshots"
+    );
+
+    private IdGenerators() {}
+}
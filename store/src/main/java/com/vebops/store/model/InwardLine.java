@@ -8,13 +8,22 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 
 @Entity
 @Table(name = "inward_lines")
 public class InwardLine {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "inward_lines")
+    @TableGenerator(
+        name = "inward_lines",
+        table = IdGenerators.TABLE,
+        pkColumnName = IdGenerators.NAME_COLUMN,
+        pkColumnValue = "inward_lines",
+        valueColumnName = IdGenerators.VALUE_COLUMN,
+        allocationSize = IdGenerators.ALLOCATION_SIZE
+    )
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
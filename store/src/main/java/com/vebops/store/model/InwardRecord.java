@@ -9,6 +9,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -18,7 +19,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "inward_records")
+@Table(
+    name = "inward_records",
+    indexes = {
+        @Index(name = "idx_inward_record_project_date", columnList = "project_id, entry_date"),
+        @Index(name = "idx_inward_record_date", columnList = "entry_date, id")
+    }
+)
 public class InwardRecord {
 
     @Id
@@ -0,0 +1,8 @@
+package com.vebops.store.model;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
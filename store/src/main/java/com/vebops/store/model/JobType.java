@@ -0,0 +1,6 @@
+package com.vebops.store.model;
+
+public enum JobType {
+    MATERIAL_IMPORT,
+    MATERIAL_EXPORT
+}
@@ -6,13 +6,22 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 
 @Entity
 @Table(name = "materials")
 public class Material {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "materials")
+    @TableGenerator(
+        name = "materials",
+        table = IdGenerators.TABLE,
+        pkColumnName = IdGenerators.NAME_COLUMN,
+        pkColumnValue = "materials",
+        valueColumnName = IdGenerators.VALUE_COLUMN,
+        allocationSize = IdGenerators.ALLOCATION_SIZE
+    )
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -0,0 +1,39 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Single-row counter bumped by every transaction that changes the material catalog, so a node can
+ * tell that another node has edited materials since its search index was built.
+ */
+@Entity
+@Table(name = "material_catalog_revisions")
+public class MaterialCatalogRevision {
+
+    public static final long ROW_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long revision;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+}
@@ -9,6 +9,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -18,7 +19,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "outward_registers")
+@Table(
+    name = "outward_registers",
+    indexes = {
+        @Index(name = "idx_outward_register_project_date", columnList = "project_id, date"),
+        @Index(name = "idx_outward_register_date", columnList = "date, id")
+    }
+)
 public class OutwardRegister {
 
     @Id
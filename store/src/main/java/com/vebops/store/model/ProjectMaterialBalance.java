@@ -0,0 +1,110 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+
+@Entity
+@Table(
+    name = "project_material_balances",
+    uniqueConstraints = @UniqueConstraint(name = "uk_balance_project_material", columnNames = {"project_id", "material_id"})
+)
+public class ProjectMaterialBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "project_material_balances")
+    @TableGenerator(
+        name = "project_material_balances",
+        table = IdGenerators.TABLE,
+        pkColumnName = IdGenerators.NAME_COLUMN,
+        pkColumnValue = "project_material_balances",
+        valueColumnName = IdGenerators.VALUE_COLUMN,
+        allocationSize = IdGenerators.ALLOCATION_SIZE
+    )
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    private Project project;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "material_id", nullable = false)
+    private Material material;
+
+    private double orderedQty;
+    private double receivedQty;
+    private double issuedQty;
+    private double allocatedQty;
+
+    // Backstop for writers that bypass the stock locks: a stale flush fails instead of overwriting
+    @Version
+    private long version;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    public void setProject(Project project) {
+        this.project = project;
+    }
+
+    public Material getMaterial() {
+        return material;
+    }
+
+    public void setMaterial(Material material) {
+        this.material = material;
+    }
+
+    public double getOrderedQty() {
+        return orderedQty;
+    }
+
+    public void setOrderedQty(double orderedQty) {
+        this.orderedQty = orderedQty;
+    }
+
+    public double getReceivedQty() {
+        return receivedQty;
+    }
+
+    public void setReceivedQty(double receivedQty) {
+        this.receivedQty = receivedQty;
+    }
+
+    public double getIssuedQty() {
+        return issuedQty;
+    }
+
+    public void setIssuedQty(double issuedQty) {
+        this.issuedQty = issuedQty;
+    }
+
+    public double getAllocatedQty() {
+        return allocatedQty;
+    }
+
+    public void setAllocatedQty(double allocatedQty) {
+        this.allocatedQty = allocatedQty;
+    }
+
+    public double getBalanceQty() {
+        return Math.max(0d, receivedQty - issuedQty);
+    }
+
+    public boolean hasMovements() {
+        return orderedQty != 0d || receivedQty != 0d || issuedQty != 0d;
+    }
+}
@@ -0,0 +1,136 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only journal of stock changes per project and material. Quantities are deltas: an edit
+ * that lowers an issue is journaled as a negative {@code issuedQty}. {@code sourceId} is the inward
+ * record, outward register or transfer that caused the movement, depending on the type.
+ */
+@Entity
+@Table(
+    name = "stock_movements",
+    indexes = @Index(name = "idx_stock_movement_project_date", columnList = "project_id, movement_date, material_id")
+)
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "stock_movements")
+    @TableGenerator(
+        name = "stock_movements",
+        table = IdGenerators.TABLE,
+        pkColumnName = IdGenerators.NAME_COLUMN,
+        pkColumnValue = "stock_movements",
+        valueColumnName = IdGenerators.VALUE_COLUMN,
+        allocationSize = IdGenerators.ALLOCATION_SIZE
+    )
+    private Long id;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "material_id", nullable = false)
+    private Long materialId;
+
+    @Column(name = "movement_date", nullable = false)
+    private LocalDate movementDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private StockMovementType type;
+
+    private Long sourceId;
+
+    private double orderedQty;
+    private double receivedQty;
+    private double issuedQty;
+
+    private LocalDateTime recordedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public Long getMaterialId() {
+        return materialId;
+    }
+
+    public void setMaterialId(Long materialId) {
+        this.materialId = materialId;
+    }
+
+    public LocalDate getMovementDate() {
+        return movementDate;
+    }
+
+    public void setMovementDate(LocalDate movementDate) {
+        this.movementDate = movementDate;
+    }
+
+    public StockMovementType getType() {
+        return type;
+    }
+
+    public void setType(StockMovementType type) {
+        this.type = type;
+    }
+
+    public Long getSourceId() {
+        return sourceId;
+    }
+
+    public void setSourceId(Long sourceId) {
+        this.sourceId = sourceId;
+    }
+
+    public double getOrderedQty() {
+        return orderedQty;
+    }
+
+    public void setOrderedQty(double orderedQty) {
+        this.orderedQty = orderedQty;
+    }
+
+    public double getReceivedQty() {
+        return receivedQty;
+    }
+
+    public void setReceivedQty(double receivedQty) {
+        this.receivedQty = receivedQty;
+    }
+
+    public double getIssuedQty() {
+        return issuedQty;
+    }
+
+    public void setIssuedQty(double issuedQty) {
+        this.issuedQty = issuedQty;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+}
@@ -0,0 +1,9 @@
+package com.vebops.store.model;
+
+public enum StockMovementType {
+    INWARD,
+    OUTWARD,
+    OUTWARD_EDIT,
+    TRANSFER_OUT,
+    TRANSFER_IN
+}
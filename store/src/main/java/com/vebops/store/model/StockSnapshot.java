@@ -0,0 +1,103 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDate;
+
+/**
+ * Running totals of a project and material including every journaled movement dated on or before
+ * {@code snapshotDate}. Snapshots are taken for all materials of a project at once, at month ends.
+ */
+@Entity
+@Table(
+    name = "stock_snapshots",
+    uniqueConstraints = @UniqueConstraint(
+        name = "uk_stock_snapshot_project_date_material",
+        columnNames = {"project_id", "snapshot_date", "material_id"}
+    )
+)
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "stock_snapshots")
+    @TableGenerator(
+        name = "stock_snapshots",
+        table = IdGenerators.TABLE,
+        pkColumnName = IdGenerators.NAME_COLUMN,
+        pkColumnValue = "stock_snapshots",
+        valueColumnName = IdGenerators.VALUE_COLUMN,
+        allocationSize = IdGenerators.ALLOCATION_SIZE
+    )
+    private Long id;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "material_id", nullable = false)
+    private Long materialId;
+
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    private double orderedQty;
+    private double receivedQty;
+    private double issuedQty;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public Long getMaterialId() {
+        return materialId;
+    }
+
+    public void setMaterialId(Long materialId) {
+        this.materialId = materialId;
+    }
+
+    public LocalDate getSnapshotDate() {
+        return snapshotDate;
+    }
+
+    public void setSnapshotDate(LocalDate snapshotDate) {
+        this.snapshotDate = snapshotDate;
+    }
+
+    public double getOrderedQty() {
+        return orderedQty;
+    }
+
+    public void setOrderedQty(double orderedQty) {
+        this.orderedQty = orderedQty;
+    }
+
+    public double getReceivedQty() {
+        return receivedQty;
+    }
+
+    public void setReceivedQty(double receivedQty) {
+        this.receivedQty = receivedQty;
+    }
+
+    public double getIssuedQty() {
+        return issuedQty;
+    }
+
+    public void setIssuedQty(double issuedQty) {
+        this.issuedQty = issuedQty;
+    }
+}
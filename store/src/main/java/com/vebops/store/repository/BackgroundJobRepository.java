@@ -0,0 +1,36 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.model.BackgroundJob;
+import com.vebops.store.model.JobStatus;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface BackgroundJobRepository extends JpaRepository<BackgroundJob, Long> {
+    List<BackgroundJob> findByOwnerNodeAndStatusOrderByIdAsc(String ownerNode, JobStatus status);
+
+    List<BackgroundJob> findTop20ByUserIdOrderByIdDesc(Long userId);
+
+    List<BackgroundJob> findByOwnerNodeAndFinishedAtBefore(String ownerNode, LocalDateTime cutoff);
+
+    @Modifying
+    @Query(
+        "update BackgroundJob j set j.status = com.vebops.store.model.JobStatus.RUNNING, j.startedAt = :now " +
+        "where j.id = :id and j.ownerNode = :node and j.status = com.vebops.store.model.JobStatus.QUEUED"
+    )
+    int claim(@Param("id") Long id, @Param("node") String node, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update BackgroundJob j set j.ownerNode = :node where j.ownerNode is null")
+    int adoptUnowned(@Param("node") String node);
+
+    @Modifying
+    @Query(
+        "update BackgroundJob j set j.status = com.vebops.store.model.JobStatus.QUEUED " +
+        "where j.ownerNode = :node and j.status = com.vebops.store.model.JobStatus.RUNNING"
+    )
+    int requeueRunning(@Param("node") String node);
+}
@@ -1,19 +1,35 @@
 package com.vebops.store.repository;
 
 import com.vebops.store.model.BomLine;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface BomLineRepository extends JpaRepository<BomLine, Long> {
     List<BomLine> findByProjectId(Long projectId);
 
+    @EntityGraph(attributePaths = {"project", "material"})
+    @Query("select b from BomLine b")
+    List<BomLine> findAllWithProjectAndMaterial();
+
+    @EntityGraph(attributePaths = {"project", "material"})
+    List<BomLine> findByProjectIdIn(Collection<Long> projectIds);
+
     Optional<BomLine> findByProjectIdAndMaterialId(Long projectId, Long materialId);
 
+    List<BomLine> findByProjectIdAndMaterialIdIn(Long projectId, Collection<Long> materialIds);
+
     void deleteByProjectIdAndMaterialId(Long projectId, Long materialId);
 
+    // Rows: [materialId, quantity]
+    @Query("select b.material.id, b.quantity from BomLine b where b.project.id = :projectId")
+    List<Object[]> findQuantitiesByProjectId(@Param("projectId") Long projectId);
+
     @Query("select distinct b.project.id from BomLine b where b.project.id is not null")
     Set<Long> projectIdsWithAllocations();
 }
@@ -0,0 +1,16 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.model.ChangeLogEntry;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+    List<ChangeLogEntry> findByVersionGreaterThanAndVersionLessThanEqualOrderByVersionAscIdAsc(
+        Long since,
+        Long upTo,
+        Pageable pageable
+    );
+
+    List<ChangeLogEntry> findByVersionOrderByIdAsc(Long version);
+}
@@ -0,0 +1,10 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.model.DocumentSequence;
+import java.time.LocalDate;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface DocumentSequenceRepository extends JpaRepository<DocumentSequence, Long> {
+    Optional<DocumentSequence> findByPrefixAndSeqDate(String prefix, LocalDate seqDate);
+}
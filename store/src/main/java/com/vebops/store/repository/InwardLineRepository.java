@@ -1,23 +1,26 @@
 package com.vebops.store.repository;
 
 import com.vebops.store.model.InwardLine;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface InwardLineRepository extends JpaRepository<InwardLine, Long> {
+    // Rows: [projectId, materialId, orderedQty, receivedQty]
     @Query(
-        "select coalesce(sum(line.receivedQty), 0) from InwardLine line where line.record.project.id = :projectId and line.material.id = :materialId"
+        "select line.record.project.id, line.material.id, coalesce(sum(line.orderedQty), 0), coalesce(sum(line.receivedQty), 0) " +
+        "from InwardLine line where line.record.project.id = :projectId " +
+        "group by line.record.project.id, line.material.id"
     )
-    Double sumReceivedQtyByProjectAndMaterial(@Param("projectId") Long projectId, @Param("materialId") Long materialId);
-    // NEW: total ordered qty per project + material
+    List<Object[]> sumQuantitiesGroupedByMaterialForProject(@Param("projectId") Long projectId);
+
+    // Rows: [recordId, projectId, materialId, entryDate, orderedQty, receivedQty]
     @Query(
-        "select coalesce(sum(line.orderedQty), 0) " +
+        "select line.record.id, line.record.project.id, line.material.id, line.record.entryDate, " +
+        "coalesce(sum(line.orderedQty), 0), coalesce(sum(line.receivedQty), 0) " +
         "from InwardLine line " +
-        "where line.record.project.id = :projectId and line.material.id = :materialId"
+        "group by line.record.id, line.record.project.id, line.material.id, line.record.entryDate"
     )
-    Double sumOrderedQtyByProjectAndMaterial(
-        @Param("projectId") Long projectId,
-        @Param("materialId") Long materialId
-    );
+    List<Object[]> sumQuantitiesGroupedByRecordAndMaterial();
 }
@@ -2,16 +2,79 @@ package com.vebops.store.repository;
 
 import com.vebops.store.model.InwardRecord;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface InwardRecordRepository extends JpaRepository<InwardRecord, Long> {
     @EntityGraph(attributePaths = {"project", "lines", "lines.material"})
     List<InwardRecord> findAllByOrderByEntryDateDesc();
 
     @EntityGraph(attributePaths = {"project", "lines", "lines.material"})
-    List<InwardRecord> findByLinesMaterialIdOrderByEntryDateDesc(Long materialId);
+    List<InwardRecord> findByProjectIdInOrderByEntryDateDesc(Collection<Long> projectIds);
+
+    @EntityGraph(attributePaths = {"project", "lines", "lines.material"})
+    List<InwardRecord> findByIdInOrderByEntryDateDesc(Collection<Long> ids);
+
+    @Query(
+        "select r.id from InwardRecord r " +
+        "where exists (select 1 from InwardLine l where l.record = r and l.material.id = :materialId) " +
+        "and (:from is null or r.entryDate >= :from) and (:to is null or r.entryDate <= :to) " +
+        "order by r.entryDate desc, r.id desc"
+    )
+    List<Long> findIdsByMaterial(
+        @Param("materialId") Long materialId,
+        @Param("from") LocalDate from,
+        @Param("to") LocalDate to,
+        Pageable pageable
+    );
+
+    @Query(
+        "select r.id from InwardRecord r " +
+        "where r.project.id in :projectIds " +
+        "and exists (select 1 from InwardLine l where l.record = r and l.material.id = :materialId) " +
+        "and (:from is null or r.entryDate >= :from) and (:to is null or r.entryDate <= :to) " +
+        "order by r.entryDate desc, r.id desc"
+    )
+    List<Long> findIdsByMaterialAndProjectIdIn(
+        @Param("materialId") Long materialId,
+        @Param("projectIds") Collection<Long> projectIds,
+        @Param("from") LocalDate from,
+        @Param("to") LocalDate to,
+        Pageable pageable
+    );
+
+    /** Keyset page of (id, date) newest first; pass the last row of the previous page, or nulls for the first. */
+    @Query(
+        "select r.id, r.entryDate from InwardRecord r " +
+        "where (:afterId is null " +
+        "or (:afterDate is not null and (r.entryDate < :afterDate or (r.entryDate = :afterDate and r.id < :afterId) or r.entryDate is null)) " +
+        "or (:afterDate is null and r.entryDate is null and r.id < :afterId)) " +
+        "order by r.entryDate desc, r.id desc"
+    )
+    List<Object[]> findKeysAfter(
+        @Param("afterDate") LocalDate afterDate,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+
+    @Query(
+        "select r.id, r.entryDate from InwardRecord r " +
+        "where r.project.id in :projectIds and (:afterId is null " +
+        "or (:afterDate is not null and (r.entryDate < :afterDate or (r.entryDate = :afterDate and r.id < :afterId) or r.entryDate is null)) " +
+        "or (:afterDate is null and r.entryDate is null and r.id < :afterId)) " +
+        "order by r.entryDate desc, r.id desc"
+    )
+    List<Object[]> findKeysByProjectIdInAfter(
+        @Param("projectIds") Collection<Long> projectIds,
+        @Param("afterDate") LocalDate afterDate,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
 
     long countByEntryDate(LocalDate entryDate);
 }
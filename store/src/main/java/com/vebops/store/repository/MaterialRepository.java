@@ -1,21 +1,39 @@
 package com.vebops.store.repository;
 
 import com.vebops.store.model.Material;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface MaterialRepository extends JpaRepository<Material, Long>, JpaSpecificationExecutor<Material> {
     Optional<Material> findByCodeIgnoreCase(String code);
 
-    @Query("select distinct m.category from Material m where m.category is not null and m.category <> ''")
-    List<String> distinctCategories();
+    @Query("select m.id, m.code from Material m")
+    List<Object[]> findAllIdsAndCodes();
 
-    @Query("select distinct m.unit from Material m where m.unit is not null and m.unit <> ''")
-    List<String> distinctUnits();
+    @Query("select m.id, m.code, m.name, m.partNo, m.lineType, m.unit, m.category from Material m")
+    List<Object[]> findCatalogRows();
 
-    @Query("select distinct m.lineType from Material m where m.lineType is not null and m.lineType <> ''")
-    List<String> distinctLineTypes();
+    /** Keyset page ordered by (code, id); pass the last row of the previous page, or nulls for the first. */
+    @Query(
+        "select m from Material m " +
+        "where :afterId is null or m.code > :afterCode or (m.code = :afterCode and m.id > :afterId) " +
+        "order by m.code, m.id"
+    )
+    List<Material> findPageAfter(
+        @Param("afterCode") String afterCode,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from Material m where m.id in :ids order by m.id")
+    List<Material> lockAllById(@Param("ids") Collection<Long> ids);
 }
@@ -1,13 +1,25 @@
 package com.vebops.store.repository;
 
 import com.vebops.store.model.OutwardLine;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface OutwardLineRepository extends JpaRepository<OutwardLine, Long> {
+    // Rows: [projectId, materialId, issuedQty]
     @Query(
-        "select coalesce(sum(line.issueQty), 0) from OutwardLine line where line.register.project.id = :projectId and line.material.id = :materialId"
+        "select line.register.project.id, line.material.id, coalesce(sum(line.issueQty), 0) " +
+        "from OutwardLine line where line.register.project.id = :projectId " +
+        "group by line.register.project.id, line.material.id"
     )
-    Double sumIssuedQtyByProjectAndMaterial(@Param("projectId") Long projectId, @Param("materialId") Long materialId);
+    List<Object[]> sumIssuedQtyGroupedByMaterialForProject(@Param("projectId") Long projectId);
+
+    // Rows: [registerId, projectId, materialId, date, issuedQty]
+    @Query(
+        "select line.register.id, line.register.project.id, line.material.id, line.register.date, coalesce(sum(line.issueQty), 0) " +
+        "from OutwardLine line " +
+        "group by line.register.id, line.register.project.id, line.material.id, line.register.date"
+    )
+    List<Object[]> sumIssuedQtyGroupedByRegisterAndMaterial();
 }
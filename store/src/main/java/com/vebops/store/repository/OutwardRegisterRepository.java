@@ -1,20 +1,97 @@
 package com.vebops.store.repository;
 
 import com.vebops.store.model.OutwardRegister;
+import jakarta.persistence.LockModeType;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface OutwardRegisterRepository extends JpaRepository<OutwardRegister, Long> {
     @EntityGraph(attributePaths = {"project", "lines", "lines.material"})
     List<OutwardRegister> findAllByOrderByDateDesc();
 
     @EntityGraph(attributePaths = {"project", "lines", "lines.material"})
-    List<OutwardRegister> findByLinesMaterialIdOrderByDateDesc(Long materialId);
+    List<OutwardRegister> findByProjectIdInOrderByDateDesc(Collection<Long> projectIds);
 
-    Optional<OutwardRegister> findByProjectIdAndDate(Long projectId, LocalDate date);
+    @EntityGraph(attributePaths = {"project", "lines", "lines.material"})
+    List<OutwardRegister> findByIdInOrderByDateDesc(Collection<Long> ids);
+
+    @Query(
+        "select r.id from OutwardRegister r " +
+        "where exists (select 1 from OutwardLine l where l.register = r and l.material.id = :materialId) " +
+        "and (:from is null or r.date >= :from) and (:to is null or r.date <= :to) " +
+        "order by r.date desc, r.id desc"
+    )
+    List<Long> findIdsByMaterial(
+        @Param("materialId") Long materialId,
+        @Param("from") LocalDate from,
+        @Param("to") LocalDate to,
+        Pageable pageable
+    );
+
+    @Query(
+        "select r.id from OutwardRegister r " +
+        "where r.project.id in :projectIds " +
+        "and exists (select 1 from OutwardLine l where l.register = r and l.material.id = :materialId) " +
+        "and (:from is null or r.date >= :from) and (:to is null or r.date <= :to) " +
+        "order by r.date desc, r.id desc"
+    )
+    List<Long> findIdsByMaterialAndProjectIdIn(
+        @Param("materialId") Long materialId,
+        @Param("projectIds") Collection<Long> projectIds,
+        @Param("from") LocalDate from,
+        @Param("to") LocalDate to,
+        Pageable pageable
+    );
+
+    /** Keyset page of (id, date) newest first; pass the last row of the previous page, or nulls for the first. */
+    @Query(
+        "select r.id, r.date from OutwardRegister r " +
+        "where (:afterId is null " +
+        "or (:afterDate is not null and (r.date < :afterDate or (r.date = :afterDate and r.id < :afterId) or r.date is null)) " +
+        "or (:afterDate is null and r.date is null and r.id < :afterId)) " +
+        "order by r.date desc, r.id desc"
+    )
+    List<Object[]> findKeysAfter(
+        @Param("afterDate") LocalDate afterDate,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+
+    @Query(
+        "select r.id, r.date from OutwardRegister r " +
+        "where r.project.id in :projectIds and (:afterId is null " +
+        "or (:afterDate is not null and (r.date < :afterDate or (r.date = :afterDate and r.id < :afterId) or r.date is null)) " +
+        "or (:afterDate is null and r.date is null and r.id < :afterId)) " +
+        "order by r.date desc, r.id desc"
+    )
+    List<Object[]> findKeysByProjectIdInAfter(
+        @Param("projectIds") Collection<Long> projectIds,
+        @Param("afterDate") LocalDate afterDate,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from OutwardRegister r where r.project.id = :projectId and r.date = :date")
+    Optional<OutwardRegister> lockByProjectIdAndDate(@Param("projectId") Long projectId, @Param("date") LocalDate date);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from OutwardRegister r where r.id = :id")
+    Optional<OutwardRegister> lockById(@Param("id") Long id);
+
+    @Query("select r.project.id, r.date from OutwardRegister r where r.id = :id")
+    List<Object[]> findProjectIdAndDateById(@Param("id") Long id);
+
+    @Query("select distinct l.material.id from OutwardLine l where l.register.id = :registerId")
+    List<Long> findMaterialIdsByRegisterId(@Param("registerId") Long registerId);
 
     long countByDate(LocalDate date);
 }
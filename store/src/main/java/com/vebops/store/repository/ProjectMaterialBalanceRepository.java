@@ -0,0 +1,29 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.model.ProjectMaterialBalance;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ProjectMaterialBalanceRepository extends JpaRepository<ProjectMaterialBalance, Long> {
+    List<ProjectMaterialBalance> findByProjectIdIn(Collection<Long> projectIds);
+
+    List<ProjectMaterialBalance> findByProjectIdInAndMaterialIdIn(Collection<Long> projectIds, Collection<Long> materialIds);
+
+    @Query("select b.material.id from ProjectMaterialBalance b where b.project.id = :projectId")
+    List<Long> findMaterialIdsByProjectId(@Param("projectId") Long projectId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(
+        "select b from ProjectMaterialBalance b " +
+        "where b.project.id = :projectId and b.material.id in :materialIds order by b.material.id"
+    )
+    List<ProjectMaterialBalance> lockByProjectIdAndMaterialIdIn(
+        @Param("projectId") Long projectId,
+        @Param("materialIds") Collection<Long> materialIds
+    );
+}
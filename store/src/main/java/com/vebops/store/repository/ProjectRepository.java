@@ -1,15 +1,34 @@
 package com.vebops.store.repository;
 
 import com.vebops.store.model.Project;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ProjectRepository extends JpaRepository<Project, Long>, JpaSpecificationExecutor<Project> {
     Optional<Project> findByCodeIgnoreCase(String code);
 
+    @Query("select p.id from Project p order by p.id")
+    List<Long> findAllIds();
+
     @Query("select distinct upper(substring(p.code, 1, 1)) from Project p where p.code is not null")
     List<String> distinctCodePrefixes();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Project p where p.id = :id")
+    Optional<Project> lockById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Project p where p.id in :ids order by p.id")
+    List<Project> lockAllById(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select p from Project p where p.id = :id")
+    Optional<Project> lockSharedById(@Param("id") Long id);
 }
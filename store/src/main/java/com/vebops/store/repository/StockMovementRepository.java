@@ -0,0 +1,31 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.model.StockMovement;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    // Rows: [materialId, orderedQty, receivedQty, issuedQty] for movements dated in (after, upTo]
+    @Query(
+        "select m.materialId, coalesce(sum(m.orderedQty), 0), coalesce(sum(m.receivedQty), 0), coalesce(sum(m.issuedQty), 0) " +
+        "from StockMovement m " +
+        "where m.projectId = :projectId " +
+        "and (:after is null or m.movementDate > :after) " +
+        "and m.movementDate <= :upTo " +
+        "group by m.materialId"
+    )
+    List<Object[]> sumByMaterial(
+        @Param("projectId") Long projectId,
+        @Param("after") LocalDate after,
+        @Param("upTo") LocalDate upTo
+    );
+
+    @Query("select distinct m.projectId from StockMovement m")
+    List<Long> findProjectIds();
+
+    @Query("select min(m.movementDate) from StockMovement m where m.projectId = :projectId")
+    LocalDate findFirstMovementDate(@Param("projectId") Long projectId);
+}
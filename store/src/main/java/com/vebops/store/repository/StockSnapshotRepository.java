@@ -0,0 +1,22 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.model.StockSnapshot;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+    List<StockSnapshot> findByProjectIdAndSnapshotDate(Long projectId, LocalDate snapshotDate);
+
+    boolean existsByProjectIdAndSnapshotDateGreaterThanEqual(Long projectId, LocalDate snapshotDate);
+
+    @Query("select max(s.snapshotDate) from StockSnapshot s where s.projectId = :projectId and s.snapshotDate <= :asOf")
+    LocalDate findLatestSnapshotDate(@Param("projectId") Long projectId, @Param("asOf") LocalDate asOf);
+
+    @Modifying
+    @Query("delete from StockSnapshot s where s.projectId = :projectId and s.snapshotDate >= :from")
+    int deleteFrom(@Param("projectId") Long projectId, @Param("from") LocalDate from);
+}
@@ -2,13 +2,56 @@ package com.vebops.store.repository;
 
 import com.vebops.store.model.TransferRecord;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface TransferRecordRepository extends JpaRepository<TransferRecord, Long> {
     @EntityGraph(attributePaths = {"fromProject", "toProject", "lines", "lines.material"})
     List<TransferRecord> findAllByOrderByTransferDateDesc();
 
+    @EntityGraph(attributePaths = {"fromProject", "toProject", "lines", "lines.material"})
+    List<TransferRecord> findByIdInOrderByTransferDateDesc(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"fromProject", "toProject", "lines", "lines.material"})
+    @Query(
+        "select r from TransferRecord r " +
+        "where r.fromProject.id in :projectIds or r.toProject.id in :projectIds " +
+        "order by r.transferDate desc"
+    )
+    List<TransferRecord> findByProjectIdInOrderByTransferDateDesc(@Param("projectIds") Collection<Long> projectIds);
+
+    /** Keyset page of (id, date) newest first; pass the last row of the previous page, or nulls for the first. */
+    @Query(
+        "select r.id, r.transferDate from TransferRecord r " +
+        "where (:afterId is null " +
+        "or (:afterDate is not null and (r.transferDate < :afterDate or (r.transferDate = :afterDate and r.id < :afterId) or r.transferDate is null)) " +
+        "or (:afterDate is null and r.transferDate is null and r.id < :afterId)) " +
+        "order by r.transferDate desc, r.id desc"
+    )
+    List<Object[]> findKeysAfter(
+        @Param("afterDate") LocalDate afterDate,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+
+    @Query(
+        "select r.id, r.transferDate from TransferRecord r " +
+        "where (r.fromProject.id in :projectIds or r.toProject.id in :projectIds) and (:afterId is null " +
+        "or (:afterDate is not null and (r.transferDate < :afterDate or (r.transferDate = :afterDate and r.id < :afterId) or r.transferDate is null)) " +
+        "or (:afterDate is null and r.transferDate is null and r.id < :afterId)) " +
+        "order by r.transferDate desc, r.id desc"
+    )
+    List<Object[]> findKeysByProjectIdInAfter(
+        @Param("projectIds") Collection<Long> projectIds,
+        @Param("afterDate") LocalDate afterDate,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+
     long countByTransferDate(LocalDate transferDate);
 }
@@ -11,6 +11,7 @@ import com.vebops.store.dto.UserDto;
 import com.vebops.store.exception.BadRequestException;
 import com.vebops.store.exception.NotFoundException;
 import com.vebops.store.model.AccessType;
+import com.vebops.store.model.ChangeEntityType;
 import com.vebops.store.model.Project;
 import com.vebops.store.model.Role;
 import com.vebops.store.model.UserAccount;
@@ -28,11 +29,11 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 @Service
@@ -43,19 +44,25 @@ public class AdminService {
     private final MaterialRepository materialRepository;
     private final BomLineRepository bomLineRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ChangeLogService changeLogService;
+    private final PrincipalCache principalCache;
 
     public AdminService(
         ProjectRepository projectRepository,
         UserRepository userRepository,
         MaterialRepository materialRepository,
         BomLineRepository bomLineRepository,
-        PasswordEncoder passwordEncoder
+        PasswordEncoder passwordEncoder,
+        ChangeLogService changeLogService,
+        PrincipalCache principalCache
     ) {
         this.projectRepository = projectRepository;
         this.userRepository = userRepository;
         this.materialRepository = materialRepository;
         this.bomLineRepository = bomLineRepository;
         this.passwordEncoder = passwordEncoder;
+        this.changeLogService = changeLogService;
+        this.principalCache = principalCache;
     }
 
     public PaginatedResponse<ProjectDto> searchProjects(
@@ -63,7 +70,9 @@ public class AdminService {
         List<String> prefixes,
         String allocationFilter,
         int page,
-        int size
+        int size,
+        String after,
+        boolean includeTotal
     ) {
         int safePage = normalizePage(page);
         int safeSize = normalizeSize(size);
@@ -99,9 +108,7 @@ public class AdminService {
                 spec = spec.and((root, q, cb) -> cb.not(root.get("id").in(allocatedProjects)));
             }
         }
-        Pageable pageable = PageRequest.of(safePage - 1, safeSize, Sort.by("code").ascending());
-        Page<Project> result = projectRepository.findAll(spec, pageable);
-        List<ProjectDto> items = result.stream().map(this::toProjectDto).toList();
+        Sort sort = Sort.by("code").ascending().and(Sort.by("id").ascending());
         List<String> prefixOptions = projectRepository
             .distinctCodePrefixes()
             .stream()
@@ -111,6 +118,37 @@ public class AdminService {
             .sorted()
             .toList();
         Map<String, List<String>> filters = Map.of("prefixes", prefixOptions);
+        if (StringUtils.hasText(after)) {
+            String[] key = PageCursor.decode(after, 2);
+            long afterId = PageCursor.longKey(key[1]);
+            Specification<Project> seek = spec.and((root, q, cb) ->
+                cb.or(
+                    cb.greaterThan(root.get("code"), key[0]),
+                    cb.and(cb.equal(root.get("code"), key[0]), cb.greaterThan(root.get("id"), afterId))
+                )
+            );
+            Specification<Project> before = spec.and((root, q, cb) ->
+                cb.or(
+                    cb.lessThan(root.get("code"), key[0]),
+                    cb.and(cb.equal(root.get("code"), key[0]), cb.lessThanOrEqualTo(root.get("id"), afterId))
+                )
+            );
+            List<Project> rows = projectRepository.findBy(seek, query -> query.sortBy(sort).limit(safeSize + 1).all());
+            boolean hasNext = rows.size() > safeSize;
+            List<Project> pageRows = hasNext ? rows.subList(0, safeSize) : rows;
+            return PaginatedResponse.afterCursor(
+                pageRows.stream().map(this::toProjectDto).toList(),
+                includeTotal ? projectRepository.count(spec) : null,
+                safeSize,
+                hasNext,
+                projectRepository.exists(before),
+                filters,
+                Map.of(),
+                hasNext ? projectCursor(pageRows.get(pageRows.size() - 1)) : null
+            );
+        }
+        Page<Project> result = projectRepository.findAll(spec, PageRequest.of(safePage - 1, safeSize, sort));
+        List<ProjectDto> items = result.stream().map(this::toProjectDto).toList();
         return new PaginatedResponse<>(
             items,
             result.getTotalElements(),
@@ -119,10 +157,13 @@ public class AdminService {
             result.getTotalPages(),
             result.hasNext(),
             result.hasPrevious(),
-            filters
+            filters,
+            Map.of(),
+            result.hasNext() && !items.isEmpty() ? projectCursor(result.getContent().get(items.size() - 1)) : null
         );
     }
 
+    @Transactional
     public ProjectDto createProject(CreateProjectRequest request) {
         if (request == null || !StringUtils.hasText(request.code()) || !StringUtils.hasText(request.name())) {
             throw new BadRequestException("Project code and name are required");
@@ -135,9 +176,12 @@ public class AdminService {
         Project project = new Project();
         project.setCode(request.code().trim());
         project.setName(request.name().trim());
-        return toProjectDto(projectRepository.save(project));
+        Project saved = projectRepository.save(project);
+        changeLogService.recordUpsert(ChangeEntityType.PROJECT, saved.getId(), null);
+        return toProjectDto(saved);
     }
 
+    @Transactional
     public ProjectDto updateProject(Long id, UpdateProjectRequest request) {
         Project project = projectRepository.findById(id).orElseThrow(() -> new NotFoundException("Project not found"));
         if (request == null || (!StringUtils.hasText(request.code()) && !StringUtils.hasText(request.name()))) {
@@ -157,14 +201,21 @@ public class AdminService {
         if (StringUtils.hasText(request.name())) {
             project.setName(request.name().trim());
         }
-        return toProjectDto(projectRepository.save(project));
+        Project saved = projectRepository.save(project);
+        changeLogService.recordUpsert(ChangeEntityType.PROJECT, saved.getId(), null);
+        // Cached users carry their assigned projects' codes and names
+        principalCache.evictAll();
+        return toProjectDto(saved);
     }
 
+    @Transactional
     public void deleteProject(Long id) {
         if (!projectRepository.existsById(id)) {
             throw new NotFoundException("Project not found");
         }
         projectRepository.deleteById(id);
+        changeLogService.recordDelete(ChangeEntityType.PROJECT, id, null);
+        principalCache.evictAll();
     }
 
     public PaginatedResponse<UserDto> searchUsers(
@@ -174,7 +225,9 @@ public class AdminService {
         List<String> accessTypes,
         List<String> projectIds,
         int page,
-        int size
+        int size,
+        String after,
+        boolean includeTotal
     ) {
         int safePage = normalizePage(page);
         int safeSize = normalizeSize(size);
@@ -227,9 +280,7 @@ public class AdminService {
                 });
             }
         }
-        Pageable pageable = PageRequest.of(safePage - 1, safeSize, Sort.by("name").ascending().and(Sort.by("email").ascending()));
-        Page<UserAccount> result = userRepository.findAll(spec, pageable);
-        List<UserDto> items = result.stream().map(authService::toUserDto).toList();
+        Sort sort = Sort.by("name").ascending().and(Sort.by("email").ascending());
         List<String> projectFilters = projectRepository
             .findAll(Sort.by("code").ascending())
             .stream()
@@ -244,6 +295,37 @@ public class AdminService {
             "projects",
             projectFilters
         );
+        if (StringUtils.hasText(after)) {
+            String[] key = PageCursor.decode(after, 2);
+            Specification<UserAccount> seek = spec.and((root, q, cb) ->
+                cb.or(
+                    cb.greaterThan(root.get("name"), key[0]),
+                    cb.and(cb.equal(root.get("name"), key[0]), cb.greaterThan(root.get("email"), key[1]))
+                )
+            );
+            Specification<UserAccount> before = spec.and((root, q, cb) ->
+                cb.or(
+                    cb.lessThan(root.get("name"), key[0]),
+                    cb.and(cb.equal(root.get("name"), key[0]), cb.lessThanOrEqualTo(root.get("email"), key[1]))
+                )
+            );
+            List<UserAccount> rows = userRepository.findBy(seek, query -> query.sortBy(sort).limit(safeSize + 1).all());
+            boolean hasNext = rows.size() > safeSize;
+            List<UserAccount> pageRows = hasNext ? rows.subList(0, safeSize) : rows;
+            return PaginatedResponse.afterCursor(
+                pageRows.stream().map(authService::toUserDto).toList(),
+                includeTotal ? userRepository.count(spec) : null,
+                safeSize,
+                hasNext,
+                userRepository.exists(before),
+                filters,
+                Map.of(),
+                hasNext ? userCursor(pageRows.get(pageRows.size() - 1)) : null
+            );
+        }
+        Page<UserAccount> result = userRepository.findAll(spec, PageRequest.of(safePage - 1, safeSize, sort));
+        List<UserDto> items = result.stream().map(authService::toUserDto).toList();
+        List<UserAccount> content = result.getContent();
         return new PaginatedResponse<>(
             items,
             result.getTotalElements(),
@@ -252,10 +334,21 @@ public class AdminService {
             result.getTotalPages(),
             result.hasNext(),
             result.hasPrevious(),
-            filters
+            filters,
+            Map.of(),
+            result.hasNext() && !content.isEmpty() ? userCursor(content.get(content.size() - 1)) : null
         );
     }
 
+    private String projectCursor(Project project) {
+        return PageCursor.encode(project.getCode(), String.valueOf(project.getId()));
+    }
+
+    private String userCursor(UserAccount user) {
+        return PageCursor.encode(user.getName(), user.getEmail());
+    }
+
+    @Transactional
     public UserDto createUser(CreateUserRequest request, AuthService authService) {
         validateUserRequest(request.name(), request.email(), request.password());
         userRepository
@@ -268,9 +361,12 @@ public class AdminService {
         user.setEmail(request.email().trim());
         user.setPasswordHash(passwordEncoder.encode(request.password()));
         assignProjects(user, request.projectIds());
-        return authService.toUserDto(userRepository.save(user));
+        UserAccount saved = userRepository.save(user);
+        changeLogService.recordUpsert(ChangeEntityType.USER, saved.getId(), null);
+        return authService.toUserDto(saved);
     }
 
+    @Transactional
     public UserDto updateUser(Long id, UpdateUserRequest request, AuthService authService) {
         UserAccount user = userRepository.findById(id).orElseThrow(() -> new NotFoundException("User not found"));
         if (StringUtils.hasText(request.name())) {
@@ -289,11 +385,17 @@ public class AdminService {
         if (request.projectIds() != null) {
             assignProjects(user, request.projectIds());
         }
-        return authService.toUserDto(userRepository.save(user));
+        UserAccount saved = userRepository.save(user);
+        changeLogService.recordUpsert(ChangeEntityType.USER, saved.getId(), null);
+        principalCache.evict(saved.getId());
+        return authService.toUserDto(saved);
     }
 
+    @Transactional
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        principalCache.evict(id);
+        changeLogService.recordDelete(ChangeEntityType.USER, id, null);
     }
 
     public AnalyticsDto analytics() {
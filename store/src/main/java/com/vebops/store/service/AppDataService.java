@@ -1,45 +1,53 @@
 package com.vebops.store.service;
 
 import com.vebops.store.dto.AppBootstrapResponse;
+import com.vebops.store.dto.AppChangesResponse;
 import com.vebops.store.dto.BomLineDto;
-import com.vebops.store.dto.InwardLineDto;
+import com.vebops.store.dto.ChangeTombstoneDto;
+import com.vebops.store.dto.InventoryCodesResponse;
 import com.vebops.store.dto.InwardRecordDto;
 import com.vebops.store.dto.MaterialDto;
 import com.vebops.store.dto.MaterialMovementDto;
-import com.vebops.store.dto.OutwardLineDto;
 import com.vebops.store.dto.OutwardRegisterDto;
 import com.vebops.store.dto.ProcurementRequestDto;
 import com.vebops.store.dto.ProjectDto;
-import com.vebops.store.dto.TransferLineDto;
 import com.vebops.store.dto.TransferRecordDto;
 import com.vebops.store.dto.UserDto;
 import com.vebops.store.exception.BadRequestException;
 import com.vebops.store.model.AccessType;
-import com.vebops.store.model.BomLine;
-import com.vebops.store.model.InwardLine;
+import com.vebops.store.model.ChangeEntityType;
+import com.vebops.store.model.ChangeLogEntry;
+import com.vebops.store.model.ChangeOperation;
 import com.vebops.store.model.InwardRecord;
 import com.vebops.store.model.Material;
 import com.vebops.store.model.OutwardRegister;
 import com.vebops.store.model.Project;
 import com.vebops.store.model.TransferRecord;
 import com.vebops.store.model.UserAccount;
-import com.vebops.store.repository.BomLineRepository;
-import com.vebops.store.repository.InwardLineRepository;
+import com.vebops.store.repository.ChangeLogRepository;
 import com.vebops.store.repository.InwardRecordRepository;
 import com.vebops.store.repository.MaterialRepository;
-import com.vebops.store.repository.OutwardLineRepository;
 import com.vebops.store.repository.OutwardRegisterRepository;
 import com.vebops.store.repository.ProjectRepository;
 import com.vebops.store.repository.TransferRecordRepository;
 import com.vebops.store.repository.UserRepository;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -47,328 +55,404 @@ public class AppDataService {
 
     private final ProjectRepository projectRepository;
     private final MaterialRepository materialRepository;
-    private final BomLineRepository bomLineRepository;
-    private final InwardLineRepository inwardLineRepository;
     private final InwardRecordRepository inwardRecordRepository;
-    private final OutwardLineRepository outwardLineRepository;
     private final OutwardRegisterRepository outwardRegisterRepository;
     private final TransferRecordRepository transferRecordRepository;
     private final UserRepository userRepository;
     private final AuthService authService;
     private final ProcurementService procurementService;
     private final InventoryService inventoryService;
+    private final ProjectMaterialTotalsService projectMaterialTotalsService;
+    private final ChangeLogService changeLogService;
+    private final ChangeLogRepository changeLogRepository;
+    private final AppDtoMapper dtoMapper;
+    private final BootstrapSectionRunner sectionRunner;
+    private final RuntimeMetrics metrics;
 
-    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final int CHANGES_PAGE_SIZE = 500;
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
+    private static final int FETCH_BATCH_SIZE = 500;
 
     public AppDataService(
         ProjectRepository projectRepository,
         MaterialRepository materialRepository,
-        BomLineRepository bomLineRepository,
-        InwardLineRepository inwardLineRepository,
         InwardRecordRepository inwardRecordRepository,
-        OutwardLineRepository outwardLineRepository,
         OutwardRegisterRepository outwardRegisterRepository,
         TransferRecordRepository transferRecordRepository,
         UserRepository userRepository,
         AuthService authService,
         ProcurementService procurementService,
-        InventoryService inventoryService
+        InventoryService inventoryService,
+        ProjectMaterialTotalsService projectMaterialTotalsService,
+        ChangeLogService changeLogService,
+        ChangeLogRepository changeLogRepository,
+        AppDtoMapper dtoMapper,
+        BootstrapSectionRunner sectionRunner,
+        RuntimeMetrics metrics
     ) {
         this.projectRepository = projectRepository;
         this.materialRepository = materialRepository;
-        this.bomLineRepository = bomLineRepository;
-        this.inwardLineRepository = inwardLineRepository;
         this.inwardRecordRepository = inwardRecordRepository;
-        this.outwardLineRepository = outwardLineRepository;
         this.outwardRegisterRepository = outwardRegisterRepository;
         this.transferRecordRepository = transferRecordRepository;
         this.userRepository = userRepository;
         this.authService = authService;
         this.procurementService = procurementService;
         this.inventoryService = inventoryService;
+        this.projectMaterialTotalsService = projectMaterialTotalsService;
+        this.changeLogService = changeLogService;
+        this.changeLogRepository = changeLogRepository;
+        this.dtoMapper = dtoMapper;
+        this.sectionRunner = sectionRunner;
+        this.metrics = metrics;
     }
 
     public AppBootstrapResponse bootstrap(UserAccount user) {
-        List<Project> allProjects = projectRepository.findAll();
-        List<ProjectDto> allProjectDtos = allProjects.stream().map(this::toProjectDto).toList();
+        long started = System.nanoTime();
+        // Read before the snapshot so changes committed while it is built are replayed by the next delta
+        long changeVersion = changeLogService.currentVersion();
 
-        List<Project> assigned = resolveAssignedProjects(user, allProjects);
-        List<ProjectDto> assignedDtos = assigned.stream().map(this::toProjectDto).toList();
+        // Everything that touches the user's lazy associations is resolved on the request thread
+        boolean allAccess = user.getAccessType() == AccessType.ALL;
+        UserDto userDto = authService.toUserDto(user);
+        List<Project> userProjects = allAccess ? List.of() : new ArrayList<>(user.getProjects());
+        Set<Long> allowedProjectIds = userProjects.stream().map(Project::getId).collect(Collectors.toSet());
+        boolean noProjects = !allAccess && allowedProjectIds.isEmpty();
 
-        List<MaterialDto> materialDtos = materialRepository
-            .findAll()
-            .stream()
-            .sorted(Comparator.comparing(Material::getCode))
-            .map(this::toMaterialDto)
-            .toList();
+        BootstrapSectionRunner.Sections sections = sectionRunner.open();
+        CompletableFuture<List<ProjectDto>> projectsSection = sections.submit("projects", () ->
+            projectRepository.findAll().stream().map(dtoMapper::toProjectDto).toList()
+        );
+        // BOM lines and their totals for the user's scope, read in a fixed number of grouped queries
+        CompletableFuture<Map<Long, List<BomLineDto>>> bomSection = sections.submit("bom", () ->
+            projectMaterialTotalsService.bomLinesByProject(allAccess ? null : allowedProjectIds)
+        );
+        CompletableFuture<List<MaterialDto>> materialsSection = sections.submit("materials", () ->
+            materialRepository
+                .findAll()
+                .stream()
+                .sorted(Comparator.comparing(Material::getCode))
+                .map(dtoMapper::toMaterialDto)
+                .toList()
+        );
+        // History is read for the user's projects only; an ALL-access user reads everything
+        CompletableFuture<List<InwardRecordDto>> inwardSection = sections.submit("inwardHistory", () ->
+            (allAccess
+                ? inwardRecordRepository.findAllByOrderByEntryDateDesc()
+                : noProjects ? List.<InwardRecord>of() : inwardRecordRepository.findByProjectIdInOrderByEntryDateDesc(allowedProjectIds))
+                .stream()
+                .map(dtoMapper::toInwardRecordDto)
+                .toList()
+        );
+        CompletableFuture<List<OutwardRegisterDto>> outwardSection = sections.submit("outwardHistory", () ->
+            (allAccess
+                ? outwardRegisterRepository.findAllByOrderByDateDesc()
+                : noProjects ? List.<OutwardRegister>of() : outwardRegisterRepository.findByProjectIdInOrderByDateDesc(allowedProjectIds))
+                .stream()
+                .map(dtoMapper::toOutwardDto)
+                .toList()
+        );
+        CompletableFuture<List<TransferRecordDto>> transferSection = sections.submit("transferHistory", () ->
+            (allAccess
+                ? transferRecordRepository.findAllByOrderByTransferDateDesc()
+                : noProjects ? List.<TransferRecord>of() : transferRecordRepository.findByProjectIdInOrderByTransferDateDesc(allowedProjectIds))
+                .stream()
+                .map(dtoMapper::toTransferDto)
+                .toList()
+        );
+        CompletableFuture<List<ProcurementRequestDto>> procurementSection = sections.submit("procurementRequests", () ->
+            procurementService.listRequests(user)
+        );
+        CompletableFuture<InventoryCodesResponse> codesSection = sections.submit("inventoryCodes", inventoryService::generateCodes);
+
+        List<ProjectDto> allProjectDtos = sections.join(projectsSection);
+        List<ProjectDto> assignedDtos = allAccess
+            ? allProjectDtos
+            : userProjects.stream().map(dtoMapper::toProjectDto).toList();
 
+        Map<Long, List<BomLineDto>> bomByProject = sections.join(bomSection);
         Map<String, List<BomLineDto>> bom = new LinkedHashMap<>();
-        for (Project project : allProjects) {
-            List<BomLineDto> lines = bomLineRepository
-                .findByProjectId(project.getId())
-                .stream()
-                .map(this::toBomLineDto)
-                .toList();
-            bom.put(String.valueOf(project.getId()), lines);
+        for (ProjectDto project : assignedDtos) {
+            bom.put(project.id(), bomByProject.getOrDefault(Long.valueOf(project.id()), List.of()));
         }
 
-        Set<Long> allowedProjectIds = assigned.stream().map(Project::getId).collect(Collectors.toSet());
+        AppBootstrapResponse response = new AppBootstrapResponse(
+            userDto,
+            allProjectDtos,
+            assignedDtos,
+            bom,
+            sections.join(materialsSection),
+            sections.join(inwardSection),
+            sections.join(outwardSection),
+            sections.join(transferSection),
+            sections.join(procurementSection),
+            sections.join(codesSection),
+            changeVersion
+        );
+        metrics.record("bootstrap.total", System.nanoTime() - started);
+        return response;
+    }
+
+    /**
+     * Entities created, updated or deleted after the given change version, visible to the user. Each
+     * call covers at most {@value #CHANGES_PAGE_SIZE} log entries, or more when one transaction wrote
+     * more than that; clients keep calling with the returned version while {@code hasMore} is set. {@code resyncRequired} asks the client to fall
+     * back to a full bootstrap, e.g. after its own project assignments changed.
+     */
+    public AppChangesResponse changes(UserAccount user, Long since) {
+        if (since == null || since < 0) {
+            throw new BadRequestException("A valid change version is required");
+        }
+        InventoryCodesResponse codes = inventoryService.generateCodes();
+        long currentVersion = changeLogService.currentVersion();
+        if (since > currentVersion) {
+            return emptyChanges(currentVersion, true, codes);
+        }
+
+        List<ChangeLogEntry> entries = changeLogRepository.findByVersionGreaterThanAndVersionLessThanEqualOrderByVersionAscIdAsc(
+            since,
+            currentVersion,
+            PageRequest.of(0, CHANGES_PAGE_SIZE + 1)
+        );
+        boolean hasMore = entries.size() > CHANGES_PAGE_SIZE;
+        if (hasMore) {
+            Long boundary = entries.get(CHANGES_PAGE_SIZE - 1).getVersion();
+            boolean split = boundary.equals(entries.get(CHANGES_PAGE_SIZE).getVersion());
+            entries = new ArrayList<>(entries.subList(0, CHANGES_PAGE_SIZE));
+            // A page never ends inside a version, or the rest of that transaction would be skipped
+            if (split) {
+                entries.removeIf(entry -> entry.getVersion().equals(boundary));
+                entries.addAll(changeLogRepository.findByVersionOrderByIdAsc(boundary));
+            }
+        }
+        long version = entries.isEmpty() ? since : entries.get(entries.size() - 1).getVersion();
+
+        Set<Long> allowedProjectIds = user.getAccessType() == AccessType.ALL
+            ? null
+            : user.getProjects().stream().map(Project::getId).collect(Collectors.toSet());
+
+        // Only the latest operation per entity matters
+        Map<ChangeKey, ChangeLogEntry> latest = new LinkedHashMap<>();
+        boolean resyncRequired = false;
+        for (ChangeLogEntry entry : entries) {
+            if (entry.getEntityType() == ChangeEntityType.USER) {
+                resyncRequired |= entry.getEntityId().equals(user.getId());
+                continue;
+            }
+            if (!isVisible(entry, allowedProjectIds)) {
+                continue;
+            }
+            ChangeKey key = new ChangeKey(entry.getEntityType(), entry.getEntityId(), entry.getProjectId());
+            latest.remove(key);
+            latest.put(key, entry);
+        }
+
+        Map<ChangeEntityType, Set<Long>> upserts = new EnumMap<>(ChangeEntityType.class);
+        List<ProjectMaterialKey> bomKeys = new ArrayList<>();
+        List<ChangeTombstoneDto> deleted = new ArrayList<>();
+        for (ChangeLogEntry entry : latest.values()) {
+            if (entry.getOperation() == ChangeOperation.DELETE) {
+                deleted.add(new ChangeTombstoneDto(
+                    entry.getEntityType().name(),
+                    String.valueOf(entry.getEntityId()),
+                    entry.getProjectId() != null ? String.valueOf(entry.getProjectId()) : null
+                ));
+            } else if (entry.getEntityType() == ChangeEntityType.BOM_LINE) {
+                bomKeys.add(new ProjectMaterialKey(entry.getProjectId(), entry.getEntityId()));
+            } else {
+                upserts.computeIfAbsent(entry.getEntityType(), type -> new LinkedHashSet<>()).add(entry.getEntityId());
+            }
+        }
 
-        List<InwardRecordDto> inward = inwardRecordRepository
-            .findAllByOrderByEntryDateDesc()
+        List<ProjectDto> projects = projectRepository
+            .findAllById(upserts.getOrDefault(ChangeEntityType.PROJECT, Set.of()))
             .stream()
-            .filter(rec -> allowedProjectIds.contains(rec.getProject().getId()))
-            .map(this::toInwardRecordDto)
+            .map(dtoMapper::toProjectDto)
             .toList();
-
-        List<OutwardRegisterDto> outward = outwardRegisterRepository
-            .findAllByOrderByDateDesc()
+        List<MaterialDto> materials = materialRepository
+            .findAllById(upserts.getOrDefault(ChangeEntityType.MATERIAL, Set.of()))
             .stream()
-            .filter(reg -> allowedProjectIds.contains(reg.getProject().getId()))
-            .map(this::toOutwardDto)
+            .sorted(Comparator.comparing(Material::getCode))
+            .map(dtoMapper::toMaterialDto)
             .toList();
-
-        List<TransferRecordDto> transfers = transferRecordRepository
-            .findAllByOrderByTransferDateDesc()
+        List<InwardRecordDto> inward = findChanged(
+            upserts,
+            ChangeEntityType.INWARD,
+            inwardRecordRepository::findByIdInOrderByEntryDateDesc
+        )
             .stream()
-            .filter(rec -> {
-                Long fromId = rec.getFromProject() != null ? rec.getFromProject().getId() : null;
-                Long toId = rec.getToProject() != null ? rec.getToProject().getId() : null;
-                return (fromId != null && allowedProjectIds.contains(fromId)) ||
-                    (toId != null && allowedProjectIds.contains(toId));
-            })
-            .map(this::toTransferDto)
+            .map(dtoMapper::toInwardRecordDto)
+            .toList();
+        List<OutwardRegisterDto> outward = findChanged(
+            upserts,
+            ChangeEntityType.OUTWARD,
+            outwardRegisterRepository::findByIdInOrderByDateDesc
+        )
+            .stream()
+            .map(dtoMapper::toOutwardDto)
+            .toList();
+        List<TransferRecordDto> transfers = findChanged(
+            upserts,
+            ChangeEntityType.TRANSFER,
+            transferRecordRepository::findByIdInOrderByTransferDateDesc
+        )
+            .stream()
+            .map(dtoMapper::toTransferDto)
             .toList();
 
-        UserDto userDto = authService.toUserDto(user);
-
-        List<ProcurementRequestDto> procurementRequests = procurementService.listRequests(user);
-
-        return new AppBootstrapResponse(
-            userDto,
-            allProjectDtos,
-            assignedDtos,
-            bom,
-            materialDtos,
+        return new AppChangesResponse(
+            version,
+            hasMore,
+            resyncRequired,
+            projects,
+            materials,
+            projectMaterialTotalsService.bomLinesFor(bomKeys),
             inward,
             outward,
             transfers,
-            procurementRequests,
-            inventoryService.generateCodes()
+            procurementService.findRequests(user, upserts.getOrDefault(ChangeEntityType.PROCUREMENT, Set.of())),
+            deleted,
+            codes
         );
     }
 
-    public List<InwardRecordDto> materialInwardHistory(UserAccount user, Long materialId) {
+    /**
+     * Inward records containing the material, newest first. {@code from}/{@code to} bound the entry
+     * date; without a {@code size} every matching record is returned.
+     */
+    public List<InwardRecordDto> materialInwardHistory(
+        UserAccount user,
+        Long materialId,
+        LocalDate from,
+        LocalDate to,
+        Integer page,
+        Integer size
+    ) {
         if (materialId == null) {
             throw new BadRequestException("Material id is required");
         }
-        List<Project> allProjects = projectRepository.findAll();
-        List<Project> assigned = resolveAssignedProjects(user, allProjects);
-        Set<Long> allowedProjectIds = assigned.stream().map(Project::getId).collect(Collectors.toSet());
-
-        return inwardRecordRepository
-            .findByLinesMaterialIdOrderByEntryDateDesc(materialId)
-            .stream()
-            .filter(rec -> allowedProjectIds.contains(rec.getProject().getId()))
-            .map(rec -> toInwardRecordDto(rec, materialId))
-            .toList();
+        return inwardHistory(user, materialId, from, to, historyPage(page, size));
     }
 
-    public MaterialMovementDto materialMovementHistory(UserAccount user, Long materialId) {
+    public MaterialMovementDto materialMovementHistory(
+        UserAccount user,
+        Long materialId,
+        LocalDate from,
+        LocalDate to,
+        Integer page,
+        Integer size
+    ) {
         if (materialId == null) {
             throw new BadRequestException("Material id is required");
         }
-        List<Project> allProjects = projectRepository.findAll();
-        List<Project> assigned = resolveAssignedProjects(user, allProjects);
-        Set<Long> allowedProjectIds = assigned.stream().map(Project::getId).collect(Collectors.toSet());
+        Pageable pageable = historyPage(page, size);
+        return new MaterialMovementDto(
+            inwardHistory(user, materialId, from, to, pageable),
+            outwardHistory(user, materialId, from, to, pageable)
+        );
+    }
 
-        List<InwardRecordDto> inwards = inwardRecordRepository
-            .findByLinesMaterialIdOrderByEntryDateDesc(materialId)
+    private List<InwardRecordDto> inwardHistory(
+        UserAccount user,
+        Long materialId,
+        LocalDate from,
+        LocalDate to,
+        Pageable pageable
+    ) {
+        Set<Long> projectIds = scopedProjectIds(user);
+        if (projectIds != null && projectIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = projectIds == null
+            ? inwardRecordRepository.findIdsByMaterial(materialId, from, to, pageable)
+            : inwardRecordRepository.findIdsByMaterialAndProjectIdIn(materialId, projectIds, from, to, pageable);
+        return loadInOrder(ids, inwardRecordRepository::findByIdInOrderByEntryDateDesc, InwardRecord::getId)
             .stream()
-            .filter(rec -> allowedProjectIds.contains(rec.getProject().getId()))
-            .map(rec -> toInwardRecordDto(rec, materialId))
+            .map(rec -> dtoMapper.toInwardRecordDto(rec, materialId))
             .toList();
+    }
 
-        List<OutwardRegisterDto> outwards = outwardRegisterRepository
-            .findByLinesMaterialIdOrderByDateDesc(materialId)
+    private List<OutwardRegisterDto> outwardHistory(
+        UserAccount user,
+        Long materialId,
+        LocalDate from,
+        LocalDate to,
+        Pageable pageable
+    ) {
+        Set<Long> projectIds = scopedProjectIds(user);
+        if (projectIds != null && projectIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = projectIds == null
+            ? outwardRegisterRepository.findIdsByMaterial(materialId, from, to, pageable)
+            : outwardRegisterRepository.findIdsByMaterialAndProjectIdIn(materialId, projectIds, from, to, pageable);
+        return loadInOrder(ids, outwardRegisterRepository::findByIdInOrderByDateDesc, OutwardRegister::getId)
             .stream()
-            .filter(reg -> allowedProjectIds.contains(reg.getProject().getId()))
-            .map(reg -> toOutwardDto(reg, materialId))
+            .map(reg -> dtoMapper.toOutwardDto(reg, materialId))
             .toList();
-
-        return new MaterialMovementDto(inwards, outwards);
     }
 
-    private List<Project> resolveAssignedProjects(UserAccount user, List<Project> allProjects) {
+    /** Project ids the user may read, or {@code null} when the user sees every project. */
+    private Set<Long> scopedProjectIds(UserAccount user) {
         if (user.getAccessType() == AccessType.ALL) {
-            return allProjects;
+            return null;
         }
-        return new ArrayList<>(user.getProjects());
-    }
-
-    private ProjectDto toProjectDto(Project project) {
-        return new ProjectDto(String.valueOf(project.getId()), project.getCode(), project.getName());
-    }
-
-    private MaterialDto toMaterialDto(Material material) {
-        return new MaterialDto(
-            String.valueOf(material.getId()),
-            material.getCode(),
-            material.getName(),
-            material.getPartNo(),
-            material.getLineType(),
-            material.getUnit(),
-            material.getCategory(),
-            material.getRequiredQty(),
-            material.getOrderedQty(),
-            material.getReceivedQty(),
-            material.getUtilizedQty(),
-            material.getBalanceQty()
-        );
-    }
-
-    private BomLineDto toBomLineDto(BomLine line) {
-        Material material = line.getMaterial();
-        Project project = line.getProject();
-        ProjectMaterialTotals totals = project != null && material != null
-            ? computeProjectMaterialTotals(project.getId(), material.getId())
-            : new ProjectMaterialTotals(0d, 0d, 0d, 0d);
-        return new BomLineDto(
-            line.getId() != null ? String.valueOf(line.getId()) : null,
-            project != null && project.getId() != null ? String.valueOf(project.getId()) : null,
-            material != null && material.getId() != null ? String.valueOf(material.getId()) : null,
-            material != null ? material.getCode() : null,
-            material != null ? material.getName() : null,
-            material != null ? material.getPartNo() : null,
-            material != null ? material.getLineType() : null,
-            material != null ? material.getUnit() : null,
-            material != null ? material.getCategory() : null,
-            line.getQuantity(),
-            line.getQuantity(),
-            totals.orderedQty(),
-            totals.receivedQty(),
-            totals.issuedQty(),
-            totals.balanceQty()
-        );
-    }
-
-    private ProjectMaterialTotals computeProjectMaterialTotals(Long projectId, Long materialId) {
-        double orderedQty = safeDouble(
-            inwardLineRepository.sumOrderedQtyByProjectAndMaterial(projectId, materialId)
-        );
-        double receivedQty = safeDouble(
-            inwardLineRepository.sumReceivedQtyByProjectAndMaterial(projectId, materialId)
-        );
-        double issuedQty = safeDouble(
-            outwardLineRepository.sumIssuedQtyByProjectAndMaterial(projectId, materialId)
-        );
-        double balanceQty = Math.max(0d, receivedQty - issuedQty);
-        return new ProjectMaterialTotals(orderedQty, receivedQty, issuedQty, balanceQty);
+        return user.getProjects().stream().map(Project::getId).collect(Collectors.toSet());
     }
 
-    private double safeDouble(Double value) {
-        return value != null ? value : 0d;
+    private Pageable historyPage(Integer page, Integer size) {
+        if (size == null || size <= 0) {
+            return Pageable.unpaged();
+        }
+        int safePage = page == null || page <= 0 ? 1 : page;
+        return PageRequest.of(safePage - 1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
     }
 
-    private record ProjectMaterialTotals(double orderedQty, double receivedQty, double issuedQty, double balanceQty) {}
-
-    private InwardRecordDto toInwardRecordDto(InwardRecord record) {
-        return toInwardRecordDto(record, null);
+    /** Fetches records with their lines in bounded id batches, keeping the order of the id page. */
+    private <T> List<T> loadInOrder(List<Long> ids, Function<Collection<Long>, List<T>> fetcher, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += FETCH_BATCH_SIZE) {
+            fetcher
+                .apply(ids.subList(from, Math.min(from + FETCH_BATCH_SIZE, ids.size())))
+                .forEach(entity -> byId.put(idOf.apply(entity), entity));
+        }
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 
-    private InwardRecordDto toInwardRecordDto(InwardRecord record, Long materialFilterId) {
-        List<InwardLineDto> lines = record
-            .getLines()
-            .stream()
-            .filter(line -> materialFilterId == null || (line.getMaterial() != null && materialFilterId.equals(line.getMaterial().getId())))
-            .map(this::toInwardLineDto)
-            .toList();
-        return new InwardRecordDto(
-            String.valueOf(record.getId()),
-            String.valueOf(record.getProject().getId()),
-            record.getProject() != null ? record.getProject().getName() : null,
-            record.getCode(),
-            record.getEntryDate() != null ? DATE_FMT.format(record.getEntryDate()) : null,
-            record.getDeliveryDate() != null ? DATE_FMT.format(record.getDeliveryDate()) : null,
-            record.getInvoiceNo(),
-            record.getSupplierName(),
-            lines.size(),
-            lines
+    private AppChangesResponse emptyChanges(long version, boolean resyncRequired, InventoryCodesResponse codes) {
+        return new AppChangesResponse(
+            version,
+            false,
+            resyncRequired,
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            codes
         );
     }
 
-    private InwardLineDto toInwardLineDto(InwardLine line) {
-        return new InwardLineDto(
-            String.valueOf(line.getId()),
-            line.getMaterial() != null ? String.valueOf(line.getMaterial().getId()) : null,
-            line.getMaterial() != null ? line.getMaterial().getCode() : null,
-            line.getMaterial() != null ? line.getMaterial().getName() : null,
-            line.getMaterial() != null ? line.getMaterial().getUnit() : null,
-            line.getOrderedQty(),
-            line.getReceivedQty()
-        );
+    private boolean isVisible(ChangeLogEntry entry, Set<Long> allowedProjectIds) {
+        if (allowedProjectIds == null || entry.getProjectId() == null) {
+            return true;
+        }
+        return allowedProjectIds.contains(entry.getProjectId())
+            || (entry.getRelatedProjectId() != null && allowedProjectIds.contains(entry.getRelatedProjectId()));
     }
 
-    private OutwardRegisterDto toOutwardDto(OutwardRegister register) {
-        return toOutwardDto(register, null);
+    private <T> List<T> findChanged(
+        Map<ChangeEntityType, Set<Long>> upserts,
+        ChangeEntityType type,
+        Function<Collection<Long>, List<T>> finder
+    ) {
+        Set<Long> ids = upserts.get(type);
+        return ids == null || ids.isEmpty() ? List.of() : finder.apply(ids);
     }
 
-    private OutwardRegisterDto toOutwardDto(OutwardRegister register, Long materialFilterId) {
-        List<OutwardLineDto> lines = register
-            .getLines()
-            .stream()
-            .filter(line ->
-                materialFilterId == null
-                    || (line.getMaterial() != null && materialFilterId.equals(line.getMaterial().getId()))
-            )
-            .map(line -> new OutwardLineDto(
-                String.valueOf(line.getId()),
-                line.getMaterial() != null ? String.valueOf(line.getMaterial().getId()) : null,
-                line.getMaterial() != null ? line.getMaterial().getCode() : null,
-                line.getMaterial() != null ? line.getMaterial().getName() : null,
-                line.getMaterial() != null ? line.getMaterial().getUnit() : null,
-                line.getIssueQty()
-            ))
-            .toList();
+    private record ChangeKey(ChangeEntityType type, Long entityId, Long projectId) {}
 
-        return new OutwardRegisterDto(
-            String.valueOf(register.getId()),
-            String.valueOf(register.getProject().getId()),
-            register.getProject() != null ? register.getProject().getName() : null,
-            register.getCode(),
-            register.getDate() != null ? DATE_FMT.format(register.getDate()) : null,
-            register.getIssueTo(),
-            register.getStatus().name(),
-            register.getCloseDate() != null ? DATE_FMT.format(register.getCloseDate()) : null,
-            lines.size(),
-            lines
-        );
-    }
-
-    private TransferRecordDto toTransferDto(TransferRecord record) {
-        return new TransferRecordDto(
-            String.valueOf(record.getId()),
-            record.getCode(),
-            record.getFromProject() != null ? String.valueOf(record.getFromProject().getId()) : null,
-            record.getFromProject() != null ? record.getFromProject().getName() : null,
-            record.getFromSite(),
-            record.getToProject() != null ? String.valueOf(record.getToProject().getId()) : null,
-            record.getToProject() != null ? record.getToProject().getName() : null,
-            record.getToSite(),
-            record.getTransferDate() != null ? DATE_FMT.format(record.getTransferDate()) : null,
-            record.getRemarks(),
-            record
-                .getLines()
-                .stream()
-                .map(line -> new TransferLineDto(
-                    String.valueOf(line.getId()),
-                    line.getMaterial() != null ? String.valueOf(line.getMaterial().getId()) : null,
-                    line.getMaterial() != null ? line.getMaterial().getCode() : null,
-                    line.getMaterial() != null ? line.getMaterial().getName() : null,
-                    line.getMaterial() != null ? line.getMaterial().getUnit() : null,
-                    line.getTransferQty()
-                ))
-                .toList()
-        );
-    }
 }
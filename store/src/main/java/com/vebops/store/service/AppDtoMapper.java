@@ -0,0 +1,149 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.InwardLineDto;
+import com.vebops.store.dto.InwardRecordDto;
+import com.vebops.store.dto.MaterialDto;
+import com.vebops.store.dto.OutwardLineDto;
+import com.vebops.store.dto.OutwardRegisterDto;
+import com.vebops.store.dto.ProjectDto;
+import com.vebops.store.dto.TransferLineDto;
+import com.vebops.store.dto.TransferRecordDto;
+import com.vebops.store.model.InwardLine;
+import com.vebops.store.model.InwardRecord;
+import com.vebops.store.model.Material;
+import com.vebops.store.model.OutwardRegister;
+import com.vebops.store.model.Project;
+import com.vebops.store.model.TransferRecord;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity to DTO mapping shared by the bootstrap, delta and streaming endpoints.
+ */
+@Component
+public class AppDtoMapper {
+
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    public ProjectDto toProjectDto(Project project) {
+        return new ProjectDto(String.valueOf(project.getId()), project.getCode(), project.getName());
+    }
+
+    public MaterialDto toMaterialDto(Material material) {
+        return new MaterialDto(
+            String.valueOf(material.getId()),
+            material.getCode(),
+            material.getName(),
+            material.getPartNo(),
+            material.getLineType(),
+            material.getUnit(),
+            material.getCategory(),
+            material.getRequiredQty(),
+            material.getOrderedQty(),
+            material.getReceivedQty(),
+            material.getUtilizedQty(),
+            material.getBalanceQty()
+        );
+    }
+
+    public InwardRecordDto toInwardRecordDto(InwardRecord record) {
+        return toInwardRecordDto(record, null);
+    }
+
+    public InwardRecordDto toInwardRecordDto(InwardRecord record, Long materialFilterId) {
+        List<InwardLineDto> lines = record
+            .getLines()
+            .stream()
+            .filter(line -> materialFilterId == null || (line.getMaterial() != null && materialFilterId.equals(line.getMaterial().getId())))
+            .map(this::toInwardLineDto)
+            .toList();
+        return new InwardRecordDto(
+            String.valueOf(record.getId()),
+            String.valueOf(record.getProject().getId()),
+            record.getProject() != null ? record.getProject().getName() : null,
+            record.getCode(),
+            record.getEntryDate() != null ? DATE_FMT.format(record.getEntryDate()) : null,
+            record.getDeliveryDate() != null ? DATE_FMT.format(record.getDeliveryDate()) : null,
+            record.getInvoiceNo(),
+            record.getSupplierName(),
+            lines.size(),
+            lines
+        );
+    }
+
+    private InwardLineDto toInwardLineDto(InwardLine line) {
+        return new InwardLineDto(
+            String.valueOf(line.getId()),
+            line.getMaterial() != null ? String.valueOf(line.getMaterial().getId()) : null,
+            line.getMaterial() != null ? line.getMaterial().getCode() : null,
+            line.getMaterial() != null ? line.getMaterial().getName() : null,
+            line.getMaterial() != null ? line.getMaterial().getUnit() : null,
+            line.getOrderedQty(),
+            line.getReceivedQty()
+        );
+    }
+
+    public OutwardRegisterDto toOutwardDto(OutwardRegister register) {
+        return toOutwardDto(register, null);
+    }
+
+    public OutwardRegisterDto toOutwardDto(OutwardRegister register, Long materialFilterId) {
+        List<OutwardLineDto> lines = register
+            .getLines()
+            .stream()
+            .filter(line ->
+                materialFilterId == null
+                    || (line.getMaterial() != null && materialFilterId.equals(line.getMaterial().getId()))
+            )
+            .map(line -> new OutwardLineDto(
+                String.valueOf(line.getId()),
+                line.getMaterial() != null ? String.valueOf(line.getMaterial().getId()) : null,
+                line.getMaterial() != null ? line.getMaterial().getCode() : null,
+                line.getMaterial() != null ? line.getMaterial().getName() : null,
+                line.getMaterial() != null ? line.getMaterial().getUnit() : null,
+                line.getIssueQty()
+            ))
+            .toList();
+
+        return new OutwardRegisterDto(
+            String.valueOf(register.getId()),
+            String.valueOf(register.getProject().getId()),
+            register.getProject() != null ? register.getProject().getName() : null,
+            register.getCode(),
+            register.getDate() != null ? DATE_FMT.format(register.getDate()) : null,
+            register.getIssueTo(),
+            register.getStatus().name(),
+            register.getCloseDate() != null ? DATE_FMT.format(register.getCloseDate()) : null,
+            lines.size(),
+            lines
+        );
+    }
+
+    public TransferRecordDto toTransferDto(TransferRecord record) {
+        return new TransferRecordDto(
+            String.valueOf(record.getId()),
+            record.getCode(),
+            record.getFromProject() != null ? String.valueOf(record.getFromProject().getId()) : null,
+            record.getFromProject() != null ? record.getFromProject().getName() : null,
+            record.getFromSite(),
+            record.getToProject() != null ? String.valueOf(record.getToProject().getId()) : null,
+            record.getToProject() != null ? record.getToProject().getName() : null,
+            record.getToSite(),
+            record.getTransferDate() != null ? DATE_FMT.format(record.getTransferDate()) : null,
+            record.getRemarks(),
+            record
+                .getLines()
+                .stream()
+                .map(line -> new TransferLineDto(
+                    String.valueOf(line.getId()),
+                    line.getMaterial() != null ? String.valueOf(line.getMaterial().getId()) : null,
+                    line.getMaterial() != null ? line.getMaterial().getCode() : null,
+                    line.getMaterial() != null ? line.getMaterial().getName() : null,
+                    line.getMaterial() != null ? line.getMaterial().getUnit() : null,
+                    line.getTransferQty()
+                ))
+                .toList()
+        );
+    }
+}
@@ -18,11 +18,18 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final TokenService tokenService;
+    private final PrincipalCache principalCache;
 
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, TokenService tokenService) {
+    public AuthService(
+        UserRepository userRepository,
+        PasswordEncoder passwordEncoder,
+        TokenService tokenService,
+        PrincipalCache principalCache
+    ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.tokenService = tokenService;
+        this.principalCache = principalCache;
     }
 
     public LoginResponse login(LoginRequest request) {
@@ -52,9 +59,11 @@ public class AuthService {
         if (userId == null) {
             throw new UnauthorizedException("Invalid token");
         }
-        return userRepository
-            .findById(userId)
-            .orElseThrow(() -> new UnauthorizedException("User not found for token"));
+        UserAccount user = principalCache.get(userId);
+        if (user == null) {
+            throw new UnauthorizedException("User not found for token");
+        }
+        return user;
     }
 
     public UserAccount requireRole(String token, Role... roles) {
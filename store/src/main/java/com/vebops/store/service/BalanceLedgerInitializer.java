@@ -0,0 +1,44 @@
+package com.vebops.store.service;
+
+import com.vebops.store.repository.BomLineRepository;
+import com.vebops.store.repository.InwardRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the project-material balance ledger from history the first time the application starts
+ * against a database that predates it.
+ */
+@Component
+public class BalanceLedgerInitializer implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceLedgerInitializer.class);
+
+    private final ProjectMaterialBalanceService balanceService;
+    private final BomLineRepository bomLineRepository;
+    private final InwardRecordRepository inwardRecordRepository;
+
+    public BalanceLedgerInitializer(
+        ProjectMaterialBalanceService balanceService,
+        BomLineRepository bomLineRepository,
+        InwardRecordRepository inwardRecordRepository
+    ) {
+        this.balanceService = balanceService;
+        this.bomLineRepository = bomLineRepository;
+        this.inwardRecordRepository = inwardRecordRepository;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!balanceService.isEmpty()) {
+            return;
+        }
+        if (bomLineRepository.count() == 0 && inwardRecordRepository.count() == 0) {
+            return;
+        }
+        int rows = balanceService.rebuild();
+        log.info("Built project material balance ledger with {} rows", rows);
+    }
+}
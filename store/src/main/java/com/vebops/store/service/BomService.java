@@ -4,15 +4,15 @@ import com.vebops.store.dto.BomLineDto;
 import com.vebops.store.exception.BadRequestException;
 import com.vebops.store.exception.NotFoundException;
 import com.vebops.store.model.BomLine;
+import com.vebops.store.model.ChangeEntityType;
 import com.vebops.store.model.Material;
 import com.vebops.store.model.Project;
 import com.vebops.store.repository.BomLineRepository;
-import com.vebops.store.repository.InwardLineRepository;
 import com.vebops.store.repository.MaterialRepository;
-import com.vebops.store.repository.OutwardLineRepository;
 import com.vebops.store.repository.ProjectRepository;
 import java.util.List;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 @Service
@@ -21,23 +21,27 @@ public class BomService {
     private final BomLineRepository bomLineRepository;
     private final ProjectRepository projectRepository;
     private final MaterialRepository materialRepository;
-    private final InwardLineRepository inwardLineRepository;
-    private final OutwardLineRepository outwardLineRepository;
+    private final ProjectMaterialTotalsService projectMaterialTotalsService;
+    private final ProjectMaterialBalanceService balanceService;
+    private final ChangeLogService changeLogService;
 
     public BomService(
         BomLineRepository bomLineRepository,
         ProjectRepository projectRepository,
         MaterialRepository materialRepository,
-        InwardLineRepository inwardLineRepository,
-        OutwardLineRepository outwardLineRepository
+        ProjectMaterialTotalsService projectMaterialTotalsService,
+        ProjectMaterialBalanceService balanceService,
+        ChangeLogService changeLogService
     ) {
         this.bomLineRepository = bomLineRepository;
         this.projectRepository = projectRepository;
         this.materialRepository = materialRepository;
-        this.inwardLineRepository = inwardLineRepository;
-        this.outwardLineRepository = outwardLineRepository;
+        this.projectMaterialTotalsService = projectMaterialTotalsService;
+        this.balanceService = balanceService;
+        this.changeLogService = changeLogService;
     }
 
+    @Transactional
     public BomLineDto assignQuantity(String projectId, String materialId, double quantity) {
         if (quantity < 0) {
             throw new BadRequestException("Quantity must be zero or greater");
@@ -50,13 +54,18 @@ public class BomService {
 
     public List<BomLineDto> listLines(String projectId) {
         Project project = requireProject(projectId);
-        return bomLineRepository.findByProjectId(project.getId()).stream().map(this::toDto).toList();
+        return projectMaterialTotalsService
+            .bomLinesByProject(List.of(project.getId()))
+            .getOrDefault(project.getId(), List.of());
     }
 
+    @Transactional
     public BomLine upsertLine(Project project, Material material, double quantity) {
         if (quantity < 0) {
             throw new BadRequestException("Quantity must be zero or greater");
         }
+        // The ledger row is locked first, in the same order inventory writers take their locks
+        balanceService.recordAllocation(project, material, quantity);
         BomLine line = bomLineRepository
             .findByProjectIdAndMaterialId(project.getId(), material.getId())
             .orElseGet(() -> {
@@ -66,13 +75,18 @@ public class BomService {
                 return created;
             });
         line.setQuantity(quantity);
-        return bomLineRepository.save(line);
+        BomLine saved = bomLineRepository.save(line);
+        changeLogService.recordUpsert(ChangeEntityType.BOM_LINE, material.getId(), project.getId());
+        return saved;
     }
 
+    @Transactional
     public void deleteLine(String projectId, String materialId) {
         Project project = requireProject(projectId);
         Material material = requireMaterial(materialId);
+        balanceService.clearAllocation(project, material);
         bomLineRepository.deleteByProjectIdAndMaterialId(project.getId(), material.getId());
+        changeLogService.recordDelete(ChangeEntityType.BOM_LINE, material.getId(), project.getId());
     }
 
     public double currentAllocation(Long projectId, Long materialId) {
@@ -105,39 +119,6 @@ public class BomService {
     }
 
     private BomLineDto toDto(BomLine line) {
-        Material material = line.getMaterial();
-        Project project = line.getProject();
-        double allocation = line.getQuantity();
-        double orderedQty = safeDouble(
-            inwardLineRepository.sumOrderedQtyByProjectAndMaterial(project.getId(), material.getId())
-        );
-        double receivedQty = safeDouble(
-            inwardLineRepository.sumReceivedQtyByProjectAndMaterial(project.getId(), material.getId())
-        );
-        double issuedQty = safeDouble(
-            outwardLineRepository.sumIssuedQtyByProjectAndMaterial(project.getId(), material.getId())
-        );
-        double balanceQty = Math.max(0d, receivedQty - issuedQty);
-        return new BomLineDto(
-            line.getId() != null ? String.valueOf(line.getId()) : null,
-            project != null && project.getId() != null ? String.valueOf(project.getId()) : null,
-            material != null && material.getId() != null ? String.valueOf(material.getId()) : null,
-            material != null ? material.getCode() : null,
-            material != null ? material.getName() : null,
-            material != null ? material.getPartNo() : null,
-            material != null ? material.getLineType() : null,
-            material != null ? material.getUnit() : null,
-            material != null ? material.getCategory() : null,
-            allocation,
-            allocation,
-            orderedQty,
-            receivedQty,
-            issuedQty,
-            balanceQty
-        );
-    }
-
-    private double safeDouble(Double value) {
-        return value != null ? value : 0d;
+        return projectMaterialTotalsService.toBomLineDto(line);
     }
 }
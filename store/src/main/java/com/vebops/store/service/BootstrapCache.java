@@ -0,0 +1,180 @@
+package com.vebops.store.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vebops.store.dto.AppBootstrapResponse;
+import com.vebops.store.model.AccessType;
+import com.vebops.store.model.ChangeLogVersion;
+import com.vebops.store.model.Project;
+import com.vebops.store.model.Role;
+import com.vebops.store.model.UserAccount;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Serialized bootstrap payloads per user scope. The payload embeds the user and, for non-reviewers,
+ * only their own procurement requests, so the key carries the user id next to the access type and
+ * project set. Evictions run after the writing transaction commits; a payload built while an
+ * eviction happened is not stored, so a stale snapshot never replaces a newer one. The cache is bounded
+ * by the total size of the stored bodies; least recently used payloads are dropped first, and a payload
+ * larger than the per-entry limit is served but never stored. Evictions only reach this node, so the
+ * key also carries the global change log version, read once per request: a change committed on any
+ * node moves it and the next request rebuilds, and payloads keyed by an older version are dropped.
+ */
+@Service
+public class BootstrapCache {
+
+    public record Entry(byte[] body, String etag) {}
+
+    private static final String VERSION_SQL =
+        "select current_version from change_log_versions where id = " + ChangeLogVersion.ROW_ID;
+
+    private record Key(Long userId, Role role, AccessType accessType, List<Long> projectIds, LocalDate day, long changeVersion) {
+        boolean coversProject(Long projectId) {
+            return accessType == AccessType.ALL || projectIds.contains(projectId);
+        }
+
+        boolean reviewsProcurement() {
+            return role == Role.ADMIN || role == Role.CEO || role == Role.COO || role == Role.PROCUREMENT_MANAGER;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+    private long totalBytes;
+    private long latestVersion;
+
+    public BootstrapCache(
+        ObjectMapper objectMapper,
+        JdbcTemplate jdbcTemplate,
+        @Value("${app.bootstrap.cache.max-bytes:67108864}") long maxBytes,
+        @Value("${app.bootstrap.cache.max-entry-bytes:8388608}") long maxEntryBytes
+    ) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+    }
+
+    public Entry obtain(UserAccount user, Supplier<AppBootstrapResponse> builder) {
+        Key key = keyFor(user, currentVersion());
+        synchronized (entries) {
+            if (key.changeVersion() > latestVersion) {
+                latestVersion = key.changeVersion();
+                removeIf(cachedKey -> cachedKey.changeVersion() < latestVersion);
+            }
+            Entry cached = entries.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long startedAt = generation.get();
+        Entry built = serialize(builder.get());
+        if (built.body().length > maxEntryBytes) {
+            return built;
+        }
+        synchronized (entries) {
+            if (generation.get() == startedAt) {
+                Entry replaced = entries.put(key, built);
+                totalBytes += built.body().length - (replaced == null ? 0 : replaced.body().length);
+                trim();
+            }
+        }
+        return built;
+    }
+
+    /** Drops least recently used payloads until the stored bodies fit the byte budget. */
+    private void trim() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().body().length;
+            eldest.remove();
+        }
+    }
+
+    public void evictAll() {
+        evict(key -> true);
+    }
+
+    public void evictProjects(Collection<Long> projectIds) {
+        evict(key -> projectIds.stream().anyMatch(key::coversProject));
+    }
+
+    /** Reviewers see every request; a requester always has the project in scope. */
+    public void evictProcurement(Long projectId) {
+        evict(key -> key.reviewsProcurement() || key.coversProject(projectId));
+    }
+
+    public void evictUser(Long userId) {
+        evict(key -> key.userId().equals(userId));
+    }
+
+    private void evict(Predicate<Key> matcher) {
+        Runnable eviction = () -> {
+            synchronized (entries) {
+                generation.incrementAndGet();
+                removeIf(matcher);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+
+    private void removeIf(Predicate<Key> matcher) {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> entry = it.next();
+            if (matcher.test(entry.getKey())) {
+                totalBytes -= entry.getValue().body().length;
+                it.remove();
+            }
+        }
+    }
+
+    private long currentVersion() {
+        Long version = jdbcTemplate.queryForObject(VERSION_SQL, Long.class);
+        return version != null ? version : 0;
+    }
+
+    private Key keyFor(UserAccount user, long changeVersion) {
+        List<Long> projectIds = user.getAccessType() == AccessType.ALL
+            ? List.of()
+            : user.getProjects().stream().map(Project::getId).sorted().toList();
+        // Inventory codes in the payload are numbered per day
+        return new Key(user.getId(), user.getRole(), user.getAccessType(), projectIds, LocalDate.now(), changeVersion);
+    }
+
+    private Entry serialize(AppBootstrapResponse response) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            return new Entry(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialize bootstrap payload", ex);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.vebops.store.service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the independent bootstrap sections. With {@code app.bootstrap.parallel.enabled} a section runs
+ * on a virtual thread in its own read-only transaction when it can take a permit from one pool shared
+ * by every request; otherwise, or when no permit is free, it runs inline on the request thread. The
+ * pool holds {@code app.bootstrap.parallel.max-concurrency} permits but always leaves connections of
+ * the Hikari pool for request threads, so concurrent bootstraps cannot exhaust it. Section timings
+ * are recorded either way.
+ */
+@Component
+public class BootstrapSectionRunner {
+
+    private final RuntimeMetrics metrics;
+    private final TransactionTemplate readOnlyTx;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    public BootstrapSectionRunner(
+        RuntimeMetrics metrics,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.bootstrap.parallel.enabled:false}") boolean parallel,
+        @Value("${app.bootstrap.parallel.max-concurrency:4}") int maxConcurrency,
+        @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize
+    ) {
+        this.metrics = metrics;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        // Keep at least half of the connection pool for request threads and writes
+        int sectionConnections = Math.min(maxConcurrency, connectionPoolSize / 2);
+        this.permits = parallel && sectionConnections > 0 ? new Semaphore(sectionConnections) : null;
+        this.executor = permits != null ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    public Sections open() {
+        return new Sections();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public final class Sections {
+
+        private Sections() {}
+
+        /** Runs the section inline when parallel sections are disabled or every permit is taken. */
+        public <T> CompletableFuture<T> submit(String name, Supplier<T> work) {
+            if (permits == null || !permits.tryAcquire()) {
+                if (permits != null) {
+                    metrics.increment("bootstrap.section.inline");
+                }
+                return CompletableFuture.completedFuture(timed(name, work));
+            }
+            try {
+                return CompletableFuture.supplyAsync(
+                    () -> {
+                        try {
+                            return timed(name, () -> readOnlyTx.execute(status -> work.get()));
+                        } finally {
+                            permits.release();
+                        }
+                    },
+                    executor
+                );
+            } catch (RuntimeException ex) {
+                permits.release();
+                throw ex;
+            }
+        }
+
+        public <T> T join(CompletableFuture<T> section) {
+            try {
+                return section.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+    }
+
+    private <T> T timed(String name, Supplier<T> work) {
+        long started = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            metrics.record("bootstrap.section." + name, System.nanoTime() - started);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.vebops.store.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vebops.store.dto.BomLineDto;
+import com.vebops.store.dto.ProjectDto;
+import com.vebops.store.dto.UserDto;
+import com.vebops.store.model.AccessType;
+import com.vebops.store.model.Material;
+import com.vebops.store.model.Project;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.repository.InwardRecordRepository;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.OutwardRegisterRepository;
+import com.vebops.store.repository.ProjectRepository;
+import com.vebops.store.repository.TransferRecordRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes the bootstrap payload section by section instead of materialising the whole
+ * {@code AppBootstrapResponse}. Every section is read in keyset pages, each page in its own short
+ * read-only transaction, so memory per request is bounded by the page size rather than the history size
+ * and a late page costs the same as the first. The JSON shape matches {@code /api/app/bootstrap}.
+ */
+@Service
+public class BootstrapStreamWriter {
+
+    private static final int PAGE_SIZE = 200;
+    private static final int BOM_PROJECTS_PER_PAGE = 20;
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, PAGE_SIZE);
+
+    private final ProjectRepository projectRepository;
+    private final MaterialRepository materialRepository;
+    private final InwardRecordRepository inwardRecordRepository;
+    private final OutwardRegisterRepository outwardRegisterRepository;
+    private final TransferRecordRepository transferRecordRepository;
+    private final AuthService authService;
+    private final ProcurementService procurementService;
+    private final InventoryService inventoryService;
+    private final ProjectMaterialTotalsService projectMaterialTotalsService;
+    private final ChangeLogService changeLogService;
+    private final AppDtoMapper dtoMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+
+    public BootstrapStreamWriter(
+        ProjectRepository projectRepository,
+        MaterialRepository materialRepository,
+        InwardRecordRepository inwardRecordRepository,
+        OutwardRegisterRepository outwardRegisterRepository,
+        TransferRecordRepository transferRecordRepository,
+        AuthService authService,
+        ProcurementService procurementService,
+        InventoryService inventoryService,
+        ProjectMaterialTotalsService projectMaterialTotalsService,
+        ChangeLogService changeLogService,
+        AppDtoMapper dtoMapper,
+        ObjectMapper objectMapper,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.projectRepository = projectRepository;
+        this.materialRepository = materialRepository;
+        this.inwardRecordRepository = inwardRecordRepository;
+        this.outwardRegisterRepository = outwardRegisterRepository;
+        this.transferRecordRepository = transferRecordRepository;
+        this.authService = authService;
+        this.procurementService = procurementService;
+        this.inventoryService = inventoryService;
+        this.projectMaterialTotalsService = projectMaterialTotalsService;
+        this.changeLogService = changeLogService;
+        this.dtoMapper = dtoMapper;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /**
+     * Resolves everything that depends on the authenticated user while the request's persistence
+     * context is still open; the body itself is written on another thread.
+     */
+    public Scope scopeFor(UserAccount user) {
+        boolean allProjects = user.getAccessType() == AccessType.ALL;
+        List<Long> assignedProjectIds = allProjects
+            ? List.of()
+            : user.getProjects().stream().map(Project::getId).sorted().toList();
+        return new Scope(user, authService.toUserDto(user), allProjects, assignedProjectIds);
+    }
+
+    public void write(Scope scope, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // Read before any section so changes committed while streaming are replayed by the next delta
+        long changeVersion = inRead(changeLogService::currentVersion);
+
+        try (JsonGenerator json = objectMapper.createGenerator(out)) {
+            json.writeStartObject();
+
+            json.writeFieldName("user");
+            writer.writeValue(json, scope.user());
+
+            List<ProjectDto> allProjects = inRead(() ->
+                projectRepository.findAll().stream().map(dtoMapper::toProjectDto).toList()
+            );
+            List<ProjectDto> assignedProjects = scope.allProjects()
+                ? allProjects
+                : allProjects.stream().filter(project -> scope.assignedProjectIds().contains(Long.valueOf(project.id()))).toList();
+            writeArray(json, writer, "projects", allProjects);
+            writeArray(json, writer, "assignedProjects", assignedProjects);
+            json.flush();
+
+            List<Long> bomProjectIds = assignedProjects.stream().map(project -> Long.valueOf(project.id())).toList();
+            json.writeObjectFieldStart("bom");
+            for (int from = 0; from < bomProjectIds.size(); from += BOM_PROJECTS_PER_PAGE) {
+                List<Long> chunk = bomProjectIds.subList(from, Math.min(from + BOM_PROJECTS_PER_PAGE, bomProjectIds.size()));
+                Map<Long, List<BomLineDto>> lines = inRead(() -> projectMaterialTotalsService.bomLinesByProject(chunk));
+                for (Long projectId : chunk) {
+                    json.writeFieldName(String.valueOf(projectId));
+                    writer.writeValue(json, lines.getOrDefault(projectId, List.of()));
+                }
+                json.flush();
+            }
+            json.writeEndObject();
+
+            json.writeArrayFieldStart("materials");
+            KeyedPage<String> materials = null;
+            do {
+                String afterCode = materials == null ? null : materials.lastKey();
+                Long afterId = materials == null ? null : materials.lastId();
+                materials = inRead(() -> {
+                    List<Material> page = materialRepository.findPageAfter(afterCode, afterId, FIRST_PAGE);
+                    Material last = page.isEmpty() ? null : page.get(page.size() - 1);
+                    return new KeyedPage<>(
+                        page.stream().map(dtoMapper::toMaterialDto).toList(),
+                        page.size(),
+                        last == null ? null : last.getCode(),
+                        last == null ? null : last.getId()
+                    );
+                });
+                writeElements(json, writer, materials.dtos());
+            } while (materials.size() == PAGE_SIZE);
+            json.writeEndArray();
+
+            writePagedRecords(
+                json,
+                writer,
+                "inwardHistory",
+                (afterDate, afterId, page) -> scope.allProjects()
+                    ? inwardRecordRepository.findKeysAfter(afterDate, afterId, page)
+                    : inwardRecordRepository.findKeysByProjectIdInAfter(scope.assignedProjectIds(), afterDate, afterId, page),
+                ids -> inOrder(ids, inwardRecordRepository.findByIdInOrderByEntryDateDesc(ids), record -> record.getId(), dtoMapper::toInwardRecordDto),
+                scope
+            );
+            writePagedRecords(
+                json,
+                writer,
+                "outwardHistory",
+                (afterDate, afterId, page) -> scope.allProjects()
+                    ? outwardRegisterRepository.findKeysAfter(afterDate, afterId, page)
+                    : outwardRegisterRepository.findKeysByProjectIdInAfter(scope.assignedProjectIds(), afterDate, afterId, page),
+                ids -> inOrder(ids, outwardRegisterRepository.findByIdInOrderByDateDesc(ids), register -> register.getId(), dtoMapper::toOutwardDto),
+                scope
+            );
+            writePagedRecords(
+                json,
+                writer,
+                "transferHistory",
+                (afterDate, afterId, page) -> scope.allProjects()
+                    ? transferRecordRepository.findKeysAfter(afterDate, afterId, page)
+                    : transferRecordRepository.findKeysByProjectIdInAfter(scope.assignedProjectIds(), afterDate, afterId, page),
+                ids -> inOrder(ids, transferRecordRepository.findByIdInOrderByTransferDateDesc(ids), record -> record.getId(), dtoMapper::toTransferDto),
+                scope
+            );
+
+            writeArray(json, writer, "procurementRequests", inRead(() -> procurementService.listRequests(scope.account())));
+
+            json.writeFieldName("inventoryCodes");
+            writer.writeValue(json, inRead(inventoryService::generateCodes));
+            json.writeNumberField("changeVersion", changeVersion);
+
+            json.writeEndObject();
+        }
+    }
+
+    private void writePagedRecords(
+        JsonGenerator json,
+        ObjectWriter writer,
+        String field,
+        KeyPage keyPage,
+        Function<List<Long>, List<?>> loader,
+        Scope scope
+    ) throws IOException {
+        json.writeArrayFieldStart(field);
+        if (scope.allProjects() || !scope.assignedProjectIds().isEmpty()) {
+            KeyedPage<LocalDate> records = null;
+            do {
+                LocalDate afterDate = records == null ? null : records.lastKey();
+                Long afterId = records == null ? null : records.lastId();
+                records = inRead(() -> {
+                    List<Object[]> keys = keyPage.fetch(afterDate, afterId, FIRST_PAGE);
+                    if (keys.isEmpty()) {
+                        return new KeyedPage<LocalDate>(List.of(), 0, null, null);
+                    }
+                    Object[] last = keys.get(keys.size() - 1);
+                    List<Long> ids = keys.stream().map(key -> (Long) key[0]).toList();
+                    return new KeyedPage<>(loader.apply(ids), keys.size(), (LocalDate) last[1], (Long) last[0]);
+                });
+                writeElements(json, writer, records.dtos());
+            } while (records.size() == PAGE_SIZE);
+        }
+        json.writeEndArray();
+    }
+
+    /** Maps the fetched entities back into the order of the id page. */
+    private static <E, D> List<D> inOrder(
+        List<Long> ids,
+        List<E> entities,
+        Function<E, Long> idOf,
+        Function<E, D> mapper
+    ) {
+        Map<Long, E> byId = entities.stream().collect(Collectors.toMap(idOf, Function.identity(), (a, b) -> a));
+        return ids.stream().map(byId::get).filter(entity -> entity != null).map(mapper).toList();
+    }
+
+    private void writeArray(JsonGenerator json, ObjectWriter writer, String field, List<?> values) throws IOException {
+        json.writeArrayFieldStart(field);
+        writeElements(json, writer, values);
+        json.writeEndArray();
+    }
+
+    private void writeElements(JsonGenerator json, ObjectWriter writer, List<?> values) throws IOException {
+        for (Object value : values) {
+            writer.writeValue(json, value);
+        }
+        json.flush();
+    }
+
+    private <T> T inRead(Supplier<T> work) {
+        return readOnlyTx.execute(status -> work.get());
+    }
+
+    /** One (id, date) keyset page of a history section, newest first. */
+    @FunctionalInterface
+    private interface KeyPage {
+        List<Object[]> fetch(LocalDate afterDate, Long afterId, Pageable page);
+    }
+
+    /** A written page plus the sort key of its last row, which the next page seeks past. */
+    private record KeyedPage<K>(List<?> dtos, int size, K lastKey, Long lastId) {}
+
+    public record Scope(UserAccount account, UserDto user, boolean allProjects, List<Long> assignedProjectIds) {}
+}
@@ -0,0 +1,214 @@
+package com.vebops.store.service;
+
+import com.vebops.store.model.ChangeEntityType;
+import com.vebops.store.model.ChangeLogVersion;
+import com.vebops.store.model.ChangeOperation;
+import com.vebops.store.model.Material;
+import com.vebops.store.model.Project;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Appends to the change log that backs {@code /api/app/changes}. Entries are collected for the
+ * writer's transaction and inserted just before it commits, after bumping the version counter row.
+ * That row stays locked until the commit, so a transaction that gets version N + 1 has waited for
+ * the one holding N to commit: a client that has seen version N + 1 can no longer miss N, which an
+ * identity id taken at insert time did not guarantee. Since every write passes through here, it also
+ * evicts the affected cached bootstrap payloads.
+ */
+@Service
+public class ChangeLogService implements SmartInitializingSingleton {
+
+    private static final String INSERT_SQL =
+        "insert into change_log (entity_type, operation, entity_id, project_id, related_project_id, changed_at, version) "
+            + "values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String BUMP_SQL =
+        "update change_log_versions set current_version = current_version + 1 where id = " + ChangeLogVersion.ROW_ID;
+    private static final String VERSION_SQL =
+        "select current_version from change_log_versions where id = " + ChangeLogVersion.ROW_ID;
+
+    private final BootstrapCache bootstrapCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+
+    // Depends on the entity manager factory so the schema update has created the tables
+    public ChangeLogService(
+        BootstrapCache bootstrapCache,
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        EntityManagerFactory entityManagerFactory
+    ) {
+        this.bootstrapCache = bootstrapCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Seeds the counter. Entries written before versions existed take their id as version, which is
+     * what clients were handed for them, and the counter starts above the highest one.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        tx.executeWithoutResult(status -> {
+            jdbcTemplate.update("update change_log set version = id where version is null");
+            Long maxVersion = jdbcTemplate.queryForObject("select coalesce(max(version), 0) from change_log", Long.class);
+            List<Long> current = jdbcTemplate.queryForList(VERSION_SQL, Long.class);
+            if (current.isEmpty()) {
+                jdbcTemplate.update(
+                    "insert into change_log_versions (id, current_version) values (?, ?)",
+                    ChangeLogVersion.ROW_ID,
+                    maxVersion
+                );
+            } else if (current.get(0) < maxVersion) {
+                jdbcTemplate.update("update change_log_versions set current_version = ? where id = ?", maxVersion, ChangeLogVersion.ROW_ID);
+            }
+        });
+    }
+
+    /** Highest committed version; every entry up to it is visible. */
+    public long currentVersion() {
+        Long version = jdbcTemplate.queryForObject(VERSION_SQL, Long.class);
+        return version != null ? version : 0;
+    }
+
+    public void recordUpsert(ChangeEntityType type, Long entityId, Long projectId) {
+        record(type, ChangeOperation.UPSERT, entityId, projectId, null);
+    }
+
+    public void recordUpsert(ChangeEntityType type, Long entityId, Long projectId, Long relatedProjectId) {
+        record(type, ChangeOperation.UPSERT, entityId, projectId, relatedProjectId);
+    }
+
+    /** Bulk variant for catalog imports: one JDBC batch and a single cache eviction. */
+    public void recordMaterialUpserts(Collection<Long> materialIds) {
+        if (materialIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(materialIds.size());
+        for (Long materialId : materialIds) {
+            rows.add(row(ChangeEntityType.MATERIAL, ChangeOperation.UPSERT, materialId, null, null, now));
+        }
+        append(rows);
+        bootstrapCache.evictAll();
+    }
+
+    public void recordDelete(ChangeEntityType type, Long entityId, Long projectId) {
+        record(type, ChangeOperation.DELETE, entityId, projectId, null);
+    }
+
+    /**
+     * Stock movements change the global material counters and the BOM totals of the project, so
+     * both are marked as changed for every material touched.
+     */
+    public void recordStockMovement(Project project, Collection<Material> materials) {
+        Set<Long> materialIds = new LinkedHashSet<>();
+        for (Material material : materials) {
+            if (material != null && material.getId() != null) {
+                materialIds.add(material.getId());
+            }
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (Long materialId : materialIds) {
+            rows.add(row(ChangeEntityType.MATERIAL, ChangeOperation.UPSERT, materialId, null, null, now));
+            rows.add(row(ChangeEntityType.BOM_LINE, ChangeOperation.UPSERT, materialId, project.getId(), null, now));
+        }
+        append(rows);
+        bootstrapCache.evictAll();
+    }
+
+    private void record(
+        ChangeEntityType type,
+        ChangeOperation operation,
+        Long entityId,
+        Long projectId,
+        Long relatedProjectId
+    ) {
+        if (entityId == null) {
+            return;
+        }
+        append(List.<Object[]>of(row(type, operation, entityId, projectId, relatedProjectId, Timestamp.valueOf(LocalDateTime.now()))));
+        evictBootstrap(type, entityId, projectId, relatedProjectId);
+    }
+
+    private void evictBootstrap(ChangeEntityType type, Long entityId, Long projectId, Long relatedProjectId) {
+        switch (type) {
+            case PROJECT, MATERIAL -> bootstrapCache.evictAll();
+            case BOM_LINE, INWARD, OUTWARD -> bootstrapCache.evictProjects(List.of(projectId));
+            case TRANSFER -> bootstrapCache.evictProjects(
+                relatedProjectId != null ? List.of(projectId, relatedProjectId) : List.of(projectId)
+            );
+            case PROCUREMENT -> bootstrapCache.evictProcurement(projectId);
+            case USER -> bootstrapCache.evictUser(entityId);
+        }
+    }
+
+    /** Queues rows for the current transaction; without one they are written in a transaction of their own. */
+    private void append(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            tx.executeWithoutResult(status -> append(rows));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> pending = (List<Object[]>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Object[]> queued = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, queued);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(queued);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeLogService.this);
+                }
+            });
+            pending = queued;
+        }
+        pending.addAll(rows);
+    }
+
+    private void write(List<Object[]> rows) {
+        // Taken last, so the counter row is only held for the commit itself
+        jdbcTemplate.update(BUMP_SQL);
+        Long version = jdbcTemplate.queryForObject(VERSION_SQL, Long.class);
+        List<Object[]> stamped = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Object[] copy = row.clone();
+            copy[copy.length - 1] = version;
+            stamped.add(copy);
+        }
+        // Identity ids keep Hibernate from batching, so the entries are written as one JDBC batch
+        jdbcTemplate.batchUpdate(INSERT_SQL, stamped);
+    }
+
+    private static Object[] row(
+        ChangeEntityType type,
+        ChangeOperation operation,
+        Long entityId,
+        Long projectId,
+        Long relatedProjectId,
+        Timestamp changedAt
+    ) {
+        return new Object[] { type.name(), operation.name(), entityId, projectId, relatedProjectId, changedAt, null };
+    }
+}
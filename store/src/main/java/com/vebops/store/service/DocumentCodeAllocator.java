@@ -0,0 +1,149 @@
+package com.vebops.store.service;
+
+import com.vebops.store.model.DocumentSequence;
+import com.vebops.store.repository.DocumentSequenceRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hands out daily document numbers per prefix. Each node reserves a block of numbers from
+ * {@code document_sequences} in its own short transaction and then serves them from memory, so
+ * issuing a number never touches the database until the block runs out. Refills are serialised per
+ * prefix and day with a {@link ReentrantLock}, so one exhausted sequence never stalls the others and
+ * a waiting virtual thread is not pinned. The reservation commits on its own so a rolled back document
+ * cannot hand its block out again. It runs on a small pool of its own ({@code app.codes.pool-size}),
+ * because the caller is usually inside a stock transaction that already holds a connection from the
+ * main pool; borrowing a second one from there could starve the pool under load. Numbers of a block
+ * that is not used up before a restart are skipped, never reissued.
+ */
+@Service
+public class DocumentCodeAllocator {
+
+    private static final int RESERVE_ATTEMPTS = 3;
+    private static final String LOCK_SQL = "select next_value from document_sequences where prefix = ? and seq_date = ? for update";
+    private static final String UPDATE_SQL = "update document_sequences set next_value = ? where prefix = ? and seq_date = ?";
+    private static final String INSERT_SQL = "insert into document_sequences (prefix, seq_date, next_value) values (?, ?, ?)";
+
+    private record Key(String prefix, LocalDate date) {}
+
+    private record Block(AtomicLong next, long limit) {}
+
+    private final DocumentSequenceRepository sequenceRepository;
+    private final HikariDataSource reservePool;
+    private final JdbcTemplate reserveJdbc;
+    private final TransactionTemplate reserveTx;
+    private final int blockSize;
+    private final Map<Key, Block> blocks = new ConcurrentHashMap<>();
+    private final Map<Key, ReentrantLock> refillLocks = new ConcurrentHashMap<>();
+
+    public DocumentCodeAllocator(
+        DocumentSequenceRepository sequenceRepository,
+        DataSourceProperties dataSourceProperties,
+        @Value("${app.codes.block-size:20}") int blockSize,
+        @Value("${app.codes.pool-size:2}") int poolSize
+    ) {
+        this.sequenceRepository = sequenceRepository;
+        this.reservePool = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        this.reservePool.setPoolName("document-codes");
+        this.reservePool.setMaximumPoolSize(Math.max(1, poolSize));
+        this.reservePool.setMinimumIdle(0);
+        this.reserveJdbc = new JdbcTemplate(reservePool);
+        this.reserveTx = new TransactionTemplate(new DataSourceTransactionManager(reservePool));
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        reservePool.close();
+    }
+
+    /**
+     * Takes the next number for the prefix and day. {@code issuedBefore} counts documents numbered
+     * before this table existed and is only consulted when the day's row is first created.
+     */
+    public long next(String prefix, LocalDate date, LongSupplier issuedBefore) {
+        Key key = new Key(prefix, date);
+        while (true) {
+            Block block = blocks.get(key);
+            if (block != null) {
+                long value = block.next().getAndIncrement();
+                if (value < block.limit()) {
+                    return value;
+                }
+            }
+            refill(key, block, issuedBefore);
+        }
+    }
+
+    /**
+     * The number {@link #next} would hand out on this node, without taking it. When the node holds no
+     * usable block the preview is the first number of the next block, read without locking or
+     * reserving anything.
+     */
+    public long peek(String prefix, LocalDate date, LongSupplier issuedBefore) {
+        Block block = blocks.get(new Key(prefix, date));
+        if (block != null) {
+            long value = block.next().get();
+            if (value < block.limit()) {
+                return value;
+            }
+        }
+        return sequenceRepository
+            .findByPrefixAndSeqDate(prefix, date)
+            .map(DocumentSequence::getNextValue)
+            .orElseGet(() -> issuedBefore.getAsLong() + 1);
+    }
+
+    private void refill(Key key, Block exhausted, LongSupplier issuedBefore) {
+        ReentrantLock lock = refillLocks.computeIfAbsent(key, ignored -> new ReentrantLock());
+        lock.lock();
+        try {
+            if (blocks.get(key) != exhausted) {
+                return;
+            }
+            long start = reserve(key, issuedBefore);
+            blocks.put(key, new Block(new AtomicLong(start), start + blockSize));
+        } finally {
+            lock.unlock();
+        }
+        blocks.keySet().removeIf(other -> other.date().isBefore(key.date()));
+        refillLocks.keySet().removeIf(other -> other.date().isBefore(key.date()));
+    }
+
+    private long reserve(Key key, LongSupplier issuedBefore) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return reserveTx.execute(status -> {
+                    List<Long> current = reserveJdbc.queryForList(LOCK_SQL, Long.class, key.prefix(), key.date());
+                    if (current.isEmpty()) {
+                        long start = issuedBefore.getAsLong() + 1;
+                        reserveJdbc.update(INSERT_SQL, key.prefix(), key.date(), start + blockSize);
+                        return start;
+                    }
+                    long start = current.get(0);
+                    reserveJdbc.update(UPDATE_SQL, start + blockSize, key.prefix(), key.date());
+                    return start;
+                });
+            } catch (DataIntegrityViolationException ex) {
+                // Another node created the day's row first; the next attempt locks it instead
+                if (attempt >= RESERVE_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.vebops.store.service;
+
+import com.vebops.store.model.IdGenerators;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves each id generator past the ids already in its table. Rows written while the tables still
+ * used identity columns would otherwise collide with the first generated block. Runs before the web
+ * server accepts requests and only ever raises a generator's value.
+ */
+@Component
+public class IdGeneratorInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorInitializer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Depends on the entity manager factory so the schema update has created the tables
+    public IdGeneratorInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String segment : IdGenerators.SEGMENTS) {
+            long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + segment, Long.class);
+            long floor = maxId + IdGenerators.ALLOCATION_SIZE;
+            List<Long> current = jdbcTemplate.queryForList(
+                "select " + IdGenerators.VALUE_COLUMN + " from " + IdGenerators.TABLE + " where " + IdGenerators.NAME_COLUMN + " = ?",
+                Long.class,
+                segment
+            );
+            if (current.isEmpty()) {
+                jdbcTemplate.update(
+                    "insert into " + IdGenerators.TABLE + " (" + IdGenerators.NAME_COLUMN + ", " + IdGenerators.VALUE_COLUMN + ") values (?, ?)",
+                    segment,
+                    floor
+                );
+            } else if (current.get(0) < floor) {
+                jdbcTemplate.update(
+                    "update " + IdGenerators.TABLE + " set " + IdGenerators.VALUE_COLUMN + " = ? where " + IdGenerators.NAME_COLUMN + " = ? and " + IdGenerators.VALUE_COLUMN + " < ?",
+                    floor,
+                    segment,
+                    floor
+                );
+                log.info("Moved id generator {} past existing id {}", segment, maxId);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.vebops.store.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.model.IdempotencyRecord;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.repository.IdempotencyRecordRepository;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Runs a write at most once per {@code Idempotency-Key}. The key row is inserted before the write in
+ * the same transaction: a failed write releases the key for another attempt, and a concurrent retry
+ * waits on the row and then finds the committed outcome. Recently completed keys are also kept in
+ * memory, so most retries are answered without a query. Key rows are deleted once they are older than
+ * {@code app.idempotency.retention-hours}; a retry arriving later than that runs as a new write.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private record Key(Long userId, String key) {}
+
+    private record Outcome(String operation, String requestHash) {}
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final RuntimeMetrics metrics;
+    private final TransactionTemplate writeTx;
+    private final Map<Key, Outcome> recent;
+    private final int retentionHours;
+
+    public IdempotencyService(
+        IdempotencyRecordRepository recordRepository,
+        ObjectMapper objectMapper,
+        RuntimeMetrics metrics,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.idempotency.cache.max-entries:10000}") int maxEntries,
+        @Value("${app.idempotency.retention-hours:72}") int retentionHours
+    ) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.retentionHours = retentionHours;
+        this.writeTx = new TransactionTemplate(transactionManager);
+        // The wrapped stock writes join this transaction and rely on reading committed rows after their locks
+        this.writeTx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Outcome> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Runs the write unless the key already completed for this user.
+     *
+     * @return {@code true} when the write was skipped because it had already been applied
+     */
+    public boolean execute(UserAccount user, String idempotencyKey, String operation, Object request, Runnable write) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            write.run();
+            return false;
+        }
+        String trimmed = idempotencyKey.trim();
+        if (trimmed.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        Key key = new Key(user.getId(), trimmed);
+        Outcome attempt = new Outcome(operation, fingerprint(request));
+
+        if (replay(key, attempt)) {
+            return true;
+        }
+        try {
+            writeTx.executeWithoutResult(status -> {
+                IdempotencyRecord record = new IdempotencyRecord();
+                record.setUserId(key.userId());
+                record.setKey(key.key());
+                record.setOperation(attempt.operation());
+                record.setRequestHash(attempt.requestHash());
+                record.setCreatedAt(LocalDateTime.now());
+                recordRepository.saveAndFlush(record);
+                write.run();
+            });
+        } catch (DataIntegrityViolationException ex) {
+            // A concurrent attempt with the same key committed first
+            if (replay(key, attempt)) {
+                return true;
+            }
+            throw ex;
+        }
+        remember(key, attempt);
+        return false;
+    }
+
+    @Scheduled(cron = "${app.idempotency.cleanup-cron:0 30 2 * * *}")
+    public void deleteExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        writeTx.executeWithoutResult(status -> recordRepository.deleteCreatedBefore(cutoff));
+    }
+
+    private boolean replay(Key key, Outcome attempt) {
+        Outcome stored;
+        synchronized (recent) {
+            stored = recent.get(key);
+        }
+        if (stored == null) {
+            Optional<IdempotencyRecord> record = recordRepository.findByUserIdAndKey(key.userId(), key.key());
+            if (record.isEmpty()) {
+                return false;
+            }
+            stored = new Outcome(record.get().getOperation(), record.get().getRequestHash());
+            remember(key, stored);
+        }
+        if (!stored.equals(attempt)) {
+            throw new BadRequestException("Idempotency-Key was already used for a different request");
+        }
+        metrics.increment("idempotency.replay");
+        return true;
+    }
+
+    private void remember(Key key, Outcome outcome) {
+        synchronized (recent) {
+            recent.put(key, outcome);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            return DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to fingerprint request", ex);
+        }
+    }
+}
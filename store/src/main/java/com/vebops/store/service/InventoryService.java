@@ -6,10 +6,11 @@ import com.vebops.store.dto.InwardRequest;
 import com.vebops.store.dto.OutwardLineRequest;
 import com.vebops.store.dto.OutwardRequest;
 import com.vebops.store.dto.OutwardUpdateRequest;
+import com.vebops.store.dto.TransferLineRequest;
 import com.vebops.store.dto.TransferRequest;
 import com.vebops.store.exception.BadRequestException;
 import com.vebops.store.exception.NotFoundException;
-import com.vebops.store.model.BomLine;
+import com.vebops.store.model.ChangeEntityType;
 import com.vebops.store.model.InwardLine;
 import com.vebops.store.model.InwardRecord;
 import com.vebops.store.model.InwardType;
@@ -18,31 +19,41 @@ import com.vebops.store.model.OutwardLine;
 import com.vebops.store.model.OutwardRegister;
 import com.vebops.store.model.OutwardStatus;
 import com.vebops.store.model.Project;
+import com.vebops.store.model.ProjectMaterialBalance;
+import com.vebops.store.model.StockMovementType;
 import com.vebops.store.model.TransferLine;
 import com.vebops.store.model.TransferRecord;
 import com.vebops.store.repository.BomLineRepository;
-import com.vebops.store.repository.InwardLineRepository;
 import com.vebops.store.repository.InwardRecordRepository;
 import com.vebops.store.repository.MaterialRepository;
-import com.vebops.store.repository.OutwardLineRepository;
 import com.vebops.store.repository.OutwardRegisterRepository;
 import com.vebops.store.repository.ProjectRepository;
 import com.vebops.store.repository.TransferRecordRepository;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.function.Supplier;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
-
+/**
+ * Stock writes read committed data and take their locks before their first read: the striped locks,
+ * then the material rows, the ledger rows and the outward register, each read FOR UPDATE. Every check
+ * and counter update therefore starts from the latest committed values rather than from a snapshot
+ * taken before another writer finished.
+ */
 @Service
 public class InventoryService {
 
@@ -52,10 +63,20 @@ public class InventoryService {
     private final OutwardRegisterRepository outwardRegisterRepository;
     private final TransferRecordRepository transferRecordRepository;
     private final BomLineRepository bomLineRepository;
-    private final InwardLineRepository inwardLineRepository;
-    private final OutwardLineRepository outwardLineRepository;
+    private final ProjectMaterialBalanceService balanceService;
+    private final ChangeLogService changeLogService;
+    private final StockLockManager stockLocks;
+    private final DocumentCodeAllocator codeAllocator;
+    private final StockJournalService stockJournal;
 
     private static final DateTimeFormatter CODE_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String INWARD_PREFIX = "INW";
+    private static final String OUTWARD_PREFIX = "OUT";
+    private static final String TRANSFER_PREFIX = "TRF";
+    private static final Pattern DAILY_CODE = Pattern.compile("(INW|OUT|TRF)-\\d{8}-\\d+");
+
+    /** Lock key for a project's outward register of one day, which writers of any material share. */
+    private record OutwardDayKey(Long projectId, LocalDate date) {}
 
     public InventoryService(
         ProjectRepository projectRepository,
@@ -64,8 +85,11 @@ public class InventoryService {
         OutwardRegisterRepository outwardRegisterRepository,
         TransferRecordRepository transferRecordRepository,
         BomLineRepository bomLineRepository,
-        InwardLineRepository inwardLineRepository,
-        OutwardLineRepository outwardLineRepository
+        ProjectMaterialBalanceService balanceService,
+        ChangeLogService changeLogService,
+        StockLockManager stockLocks,
+        DocumentCodeAllocator codeAllocator,
+        StockJournalService stockJournal
     ) {
         this.projectRepository = projectRepository;
         this.materialRepository = materialRepository;
@@ -73,28 +97,40 @@ public class InventoryService {
         this.outwardRegisterRepository = outwardRegisterRepository;
         this.transferRecordRepository = transferRecordRepository;
         this.bomLineRepository = bomLineRepository;
-        this.inwardLineRepository = inwardLineRepository;
-        this.outwardLineRepository = outwardLineRepository;
+        this.balanceService = balanceService;
+        this.changeLogService = changeLogService;
+        this.stockLocks = stockLocks;
+        this.codeAllocator = codeAllocator;
+        this.stockJournal = stockJournal;
     }
 
+    /** Previews of the next codes on this node; the code actually stored is allocated on write. */
     public InventoryCodesResponse generateCodes() {
         LocalDate today = LocalDate.now();
         return new InventoryCodesResponse(
-            buildDailyCode("INW", today, inwardRecordRepository.countByEntryDate(today) + 1),
-            buildDailyCode("OUT", today, outwardRegisterRepository.countByDate(today) + 1),
-            buildDailyCode("TRF", today, transferRecordRepository.countByTransferDate(today) + 1)
+            buildDailyCode(INWARD_PREFIX, today, codeAllocator.peek(INWARD_PREFIX, today, issuedBefore(INWARD_PREFIX, today))),
+            buildDailyCode(OUTWARD_PREFIX, today, codeAllocator.peek(OUTWARD_PREFIX, today, issuedBefore(OUTWARD_PREFIX, today))),
+            buildDailyCode(TRANSFER_PREFIX, today, codeAllocator.peek(TRANSFER_PREFIX, today, issuedBefore(TRANSFER_PREFIX, today)))
         );
     }
 
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void registerInward(InwardRequest request) {
-        Project project = requireProject(request.projectId());
+        Long projectId = parseLong(request.projectId());
         if (request.lines() == null || request.lines().isEmpty()) {
             throw new BadRequestException("At least one inward line is required");
         }
+        List<String> materialIds = request
+            .lines()
+            .stream()
+            .filter(lineReq -> lineReq.orderedQty() > 0d || lineReq.receivedQty() > 0d)
+            .map(InwardLineRequest::materialId)
+            .toList();
+        lockStock(List.of(projectId), materialIds);
+        Project project = requireProject(projectId);
 
         InwardRecord record = new InwardRecord();
-        record.setCode(resolveOrGenerateCode(request.code(), () -> generateCodes().inwardCode()));
+        record.setCode(resolveOrGenerateCode(request.code(), INWARD_PREFIX));
         record.setProject(project);
         record.setType(
             StringUtils.hasText(request.type())
@@ -113,9 +149,9 @@ public class InventoryService {
 
         List<InwardLine> lines = new ArrayList<>();
 
-        // Track quantities for this request so we don't over-count same-material lines
-        Map<Long, Double> pendingReceivedByMaterial = new HashMap<>();
-        Map<Long, Double> pendingOrderedByMaterial = new HashMap<>();
+        StockPreload stock = preload(project, lockMaterials(materialIds));
+        // Ledger rows touched by this request; they already include earlier lines of the same material
+        Map<Long, ProjectMaterialBalance> balances = new HashMap<>();
 
         request.lines().forEach(lineReq -> {
             // Sanitize quantities (no negative qty)
@@ -127,56 +163,9 @@ public class InventoryService {
                 return;
             }
 
-            Material material = requireMaterial(lineReq.materialId());
-
-            // Total BOM allocation for this material in this project
-            double allocation = requireBomAllocation(project, material);
-
-            /*
-            * 1) Check ORDERED quantity against allocation
-            *    totalOrdered = alreadyOrderedInDB + pendingOrderedInThisRequest + newOrderedQty
-            *    must be <= allocation
-            */
-            double alreadyOrdered = safeDouble(
-                inwardLineRepository.sumOrderedQtyByProjectAndMaterial(
-                    project.getId(),
-                    material.getId()
-                )
-            );
-            double pendingOrdered = pendingOrderedByMaterial.getOrDefault(material.getId(), 0d);
-            double nextOrderedTotal = alreadyOrdered + pendingOrdered + orderedQty;
-
-            if (nextOrderedTotal > allocation) {
-                throw new BadRequestException(
-                    "Ordering "
-                        + material.getCode()
-                        + " exceeds the allocated requirement ("
-                        + allocation
-                        + "). Please reduce the ordered quantity or update the project allocation."
-                );
-            }
-
-            /*
-            * 2) Check RECEIVED quantity against allocation
-            *    totalReceived = alreadyReceivedInDB + pendingReceivedInThisRequest + newReceivedQty
-            *    must be <= allocation
-            */
-            double alreadyReceived = safeDouble(
-                inwardLineRepository.sumReceivedQtyByProjectAndMaterial(
-                    project.getId(),
-                    material.getId()
-                )
-            );
-            double pendingReceived = pendingReceivedByMaterial.getOrDefault(material.getId(), 0d);
-            double nextReceivedTotal = alreadyReceived + pendingReceived + receivedQty;
-
-            if (nextReceivedTotal > allocation) {
-                throw new BadRequestException(
-                    "Receiving "
-                        + material.getCode()
-                        + " exceeds the allocated requirement. Please submit a procurement request."
-                );
-            }
+            Material material = stock.material(lineReq.materialId());
+            ProjectMaterialBalance balance = balances.computeIfAbsent(material.getId(), id -> stock.balance(material));
+            receiveStock(stock, material, balance, orderedQty, receivedQty);
 
             // Create inward line
             InwardLine line = new InwardLine();
@@ -185,19 +174,6 @@ public class InventoryService {
             line.setOrderedQty(orderedQty);
             line.setReceivedQty(receivedQty);
             lines.add(line);
-
-            // Update material aggregates
-            if (orderedQty > 0d) {
-                material.setOrderedQty(material.getOrderedQty() + orderedQty);
-            }
-            if (receivedQty > 0d) {
-                material.setReceivedQty(material.getReceivedQty() + receivedQty);
-            }
-            material.syncBalance();
-
-            // Keep track for this request
-            pendingOrderedByMaterial.put(material.getId(), pendingOrdered + orderedQty);
-            pendingReceivedByMaterial.put(material.getId(), pendingReceived + receivedQty);
         });
 
         if (lines.isEmpty()) {
@@ -205,27 +181,39 @@ public class InventoryService {
         }
 
         record.setLines(lines);
-        inwardRecordRepository.save(record);
+        InwardRecord saved = inwardRecordRepository.save(record);
+        stockJournal.append(StockMovementType.INWARD, saved.getId(), project.getId(), saved.getEntryDate(), receivedDeltas(lines));
+        changeLogService.recordUpsert(ChangeEntityType.INWARD, saved.getId(), project.getId());
+        changeLogService.recordStockMovement(project, movedMaterials(balances));
     }
 
 
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void registerOutward(OutwardRequest request) {
         if (request.lines() == null || request.lines().isEmpty()) {
             throw new BadRequestException("At least one outward line is required");
         }
 
-        Project project = requireProject(request.projectId());
+        Long projectId = parseLong(request.projectId());
         LocalDate requestedDate = parseDate(request.date());
         final LocalDate registerDate = requestedDate != null ? requestedDate : LocalDate.now();
+        List<String> materialIds = request
+            .lines()
+            .stream()
+            .filter(lineReq -> lineReq.issueQty() > 0d)
+            .map(OutwardLineRequest::materialId)
+            .toList();
+        lockStock(List.of(projectId), materialIds, new OutwardDayKey(projectId, registerDate));
 
-        OutwardRegister register = outwardRegisterRepository
-            .findByProjectIdAndDate(project.getId(), registerDate)
+        Project project = requireProject(projectId);
+        StockPreload stock = preload(project, lockMaterials(materialIds));
+
+        OutwardRegister register = lockOutwardRegister(project, registerDate, List.of(project.getId()))
             .orElseGet(() -> {
                 OutwardRegister fresh = new OutwardRegister();
                 fresh.setProject(project);
                 fresh.setDate(registerDate);
-                fresh.setCode(resolveOrGenerateCode(request.code(), () -> generateCodes().outwardCode()));
+                fresh.setCode(resolveOrGenerateCode(request.code(), OUTWARD_PREFIX));
                 fresh.setIssueTo(request.issueTo());
 
                 if (StringUtils.hasText(request.status())) {
@@ -254,89 +242,21 @@ public class InventoryService {
             .stream()
             .collect(Collectors.toMap(line -> line.getMaterial().getId(), line -> line));
 
-        // Track issues happening IN THIS REQUEST per material
-        Map<Long, Double> pendingIssuesByMaterial = new HashMap<>();
-        // Cache DB totals to avoid repeating queries
-        Map<Long, Double> issuedCache = new HashMap<>();
-        Map<Long, Double> receivedCache = new HashMap<>();
+        // Ledger rows touched by this request; they already include earlier lines of the same material
+        Map<Long, Double> issued = new HashMap<>();
+        Map<Long, ProjectMaterialBalance> balances = new HashMap<>();
         for (var lineReq : request.lines()) {
             double requestedIssueQty = Math.max(0d, lineReq.issueQty());
             if (requestedIssueQty <= 0d) {
                 continue;
             }
 
-            Material material = requireMaterial(lineReq.materialId());
-            
-
-            // 1) Compute project-wise received & already issued (from DB)
-        double totalReceivedForProject = receivedCache.computeIfAbsent(
-            material.getId(),
-            id -> safeDouble(
-                inwardLineRepository.sumReceivedQtyByProjectAndMaterial(
-                    project.getId(),
-                    id
-                )
-            )
-        );
-
-        double alreadyIssued = issuedCache.computeIfAbsent(
-            material.getId(),
-            id -> safeDouble(
-                outwardLineRepository.sumIssuedQtyByProjectAndMaterial(
-                    project.getId(),
-                    id
-                )
-            )
-        );
-
-        // What this request has already decided to issue for this material
-        double pending = pendingIssuesByMaterial.getOrDefault(material.getId(), 0d);
-
-        // Project-wise balance BEFORE this line is processed
-        double projectBalance = totalReceivedForProject - alreadyIssued - pending;
-        if (projectBalance <= 0d) {
-            throw new BadRequestException(
-                "No balance available for material "
-                    + material.getCode()
-                    + " in project "
-                    + project.getCode()
-            );
-        }
-
-        // Also ensure we don't exceed global stock
-        double globalAvailable = material.getBalanceQty();
-        double effectiveAvailable = Math.min(projectBalance, globalAvailable);
-
-        if (requestedIssueQty > effectiveAvailable) {
-            throw new BadRequestException(
-                "Cannot issue " + requestedIssueQty + " " + material.getUnit()
-                    + " of " + material.getCode()
-                    + " for project " + project.getCode()
-                    + ". Available quantity for this project is "
-                    + effectiveAvailable + "."
-            );
-        }
-
-        // If we reach here, project-wise and global-wise stock is OK
-        double issueQty = requestedIssueQty;
+            Material material = stock.material(lineReq.materialId());
+            ProjectMaterialBalance balance = balances.computeIfAbsent(material.getId(), id -> stock.balance(material));
 
+            issueStock(stock, material, balance, requestedIssueQty);
 
-                    // 2) BOM allocation check (FINAL issueQty, not requestedIssueQty)
-                    // 2) BOM allocation check (using final issueQty)
-        double allocation = requireBomAllocation(project, material);
-        double nextTotal = alreadyIssued + pending + issueQty;
-
-        if (nextTotal > allocation) {
-            throw new BadRequestException(
-                "Issuing " + material.getCode()
-                    + " exceeds the allocated requirement ("
-                    + allocation
-                    + "). Please request an increase before issuing more."
-            );
-        }
-
-
-            // 3) Create / update outward line
+            // Create / update outward line
             OutwardLine line = existing.get(material.getId());
             if (line == null) {
                 line = new OutwardLine();
@@ -347,13 +267,8 @@ public class InventoryService {
                 existing.put(material.getId(), line);
             }
 
-            line.setIssueQty(line.getIssueQty() + issueQty);
-
-            // 4) Update material aggregates
-            material.setUtilizedQty(material.getUtilizedQty() + issueQty);
-            material.syncBalance();
-
-            pendingIssuesByMaterial.put(material.getId(), pending + issueQty);
+            line.setIssueQty(line.getIssueQty() + requestedIssueQty);
+            issued.merge(material.getId(), requestedIssueQty, Double::sum);
         }
 
         if (StringUtils.hasText(request.issueTo())) {
@@ -370,12 +285,37 @@ public class InventoryService {
             }
         }
 
-        outwardRegisterRepository.save(register);
+        OutwardRegister saved = outwardRegisterRepository.save(register);
+        stockJournal.append(StockMovementType.OUTWARD, saved.getId(), project.getId(), saved.getDate(), issuedDeltas(issued));
+        changeLogService.recordUpsert(ChangeEntityType.OUTWARD, saved.getId(), project.getId());
+        changeLogService.recordStockMovement(project, movedMaterials(balances));
     }
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void updateOutward(Long registerId, OutwardUpdateRequest request) {
+        // The register's project, day and materials name the locks; nothing is loaded until they are held
+        Object[] projectAndDate = outwardRegisterRepository
+            .findProjectIdAndDateById(registerId)
+            .stream()
+            .findFirst()
+            .orElseThrow(() -> new NotFoundException("Outward register not found"));
+        Long projectId = (Long) projectAndDate[0];
+        LocalDate registerDate = (LocalDate) projectAndDate[1];
+
+        Set<String> referencedMaterialIds = new HashSet<>();
+        outwardRegisterRepository.findMaterialIdsByRegisterId(registerId).forEach(id -> referencedMaterialIds.add(String.valueOf(id)));
+        if (request.lines() != null) {
+            request
+                .lines()
+                .stream()
+                .filter(lineReq -> lineReq.issueQty() > 0)
+                .forEach(lineReq -> referencedMaterialIds.add(lineReq.materialId()));
+        }
+        lockStock(List.of(projectId), referencedMaterialIds, new OutwardDayKey(projectId, registerDate));
+
+        Project project = requireProject(projectId);
+        StockPreload stock = preload(project, lockMaterials(referencedMaterialIds));
         OutwardRegister register = outwardRegisterRepository
-            .findById(registerId)
+            .lockById(registerId)
             .orElseThrow(() -> new NotFoundException("Outward register not found"));
 
         if (register.getStatus() == OutwardStatus.CLOSED) {
@@ -398,9 +338,18 @@ public class InventoryService {
                     Collectors.summingDouble(OutwardLine::getIssueQty)
                 )
             );
+        // A line added by another node between the id lookup and the locks refers to an unlocked material
+        for (Long materialId : currentRegisterTotals.keySet()) {
+            if (!referencedMaterialIds.contains(String.valueOf(materialId))) {
+                throw new BadRequestException("The outward register was changed by another request. Please retry.");
+            }
+        }
 
-        // 2) Build next lines and aggregate requested totals per material for this register
-        List<OutwardLine> nextLines = new ArrayList<>();
+        // 2) Diff the requested lines against the existing ones and aggregate requested totals per material.
+        //    Existing lines are matched by id and only touched when their quantity changes.
+        List<OutwardLine> addedLines = new ArrayList<>();
+        Map<OutwardLine, Double> changedQuantities = new HashMap<>();
+        Set<Long> keptLineIds = new HashSet<>();
         Map<Long, Double> requestedTotals = new HashMap<>();
         Map<Long, Material> requestedMaterials = new HashMap<>();
 
@@ -411,30 +360,35 @@ public class InventoryService {
                     continue;
                 }
 
-                Material material = requireMaterial(lineReq.materialId());
+                Material material = stock.material(lineReq.materialId());
                 requestedTotals.merge(material.getId(), lineReq.issueQty(), Double::sum);
                 requestedMaterials.put(material.getId(), material);
 
                 OutwardLine line = null;
                 if (lineReq.lineId() != null) {
-                    Long id = parseLong(lineReq.lineId());
-                    line = existingById.get(id);
+                    line = existingById.get(parseLong(lineReq.lineId()));
                 }
+                // A line id pointing at another material, or used twice, describes a new line
+                if (line != null && (!material.getId().equals(line.getMaterial().getId()) || !keptLineIds.add(line.getId()))) {
+                    line = null;
+                }
+
+                // For update we keep the requested quantity as–is.
+                // BOM & balance checks are done below at aggregate level.
                 if (line == null) {
                     line = new OutwardLine();
                     line.setRegister(register);
                     line.setMaterial(material);
+                    line.setIssueQty(lineReq.issueQty());
+                    addedLines.add(line);
+                } else if (line.getIssueQty() != lineReq.issueQty()) {
+                    changedQuantities.put(line, lineReq.issueQty());
                 }
-
-                // For update we keep the requested quantity as–is.
-                // BOM & balance checks are done below at aggregate level.
-                line.setIssueQty(lineReq.issueQty());
-                nextLines.add(line);
             }
         }
 
         // 3) BOM VALIDATION: ensure total issued (all registers) <= BOM allocation
-        Map<Long, Double> issuedCache = new HashMap<>();
+        Map<Long, ProjectMaterialBalance> balances = new HashMap<>();
         for (var entry : requestedTotals.entrySet()) {
             Long materialId = entry.getKey();
             Material material = requestedMaterials.get(materialId);
@@ -442,27 +396,15 @@ public class InventoryService {
                 continue;
             }
 
-            double allocation = requireBomAllocation(register.getProject(), material);
+            double allocation = stock.allocation(material);
 
-            double totalIssuedFromDb = issuedCache.computeIfAbsent(
-                materialId,
-                id -> safeDouble(
-                    outwardLineRepository.sumIssuedQtyByProjectAndMaterial(
-                        register.getProject().getId(),
-                        id
-                    )
-                )
-            );
+            ProjectMaterialBalance balance = balances.computeIfAbsent(materialId, id -> stock.balance(material));
+            double totalIssuedFromDb = balance.getIssuedQty();
 
             double currentContribution = currentRegisterTotals.getOrDefault(materialId, 0d);
             double nextTotal = totalIssuedFromDb - currentContribution + entry.getValue();
 
-            double totalReceivedForProject = safeDouble(
-                inwardLineRepository.sumReceivedQtyByProjectAndMaterial(
-                    register.getProject().getId(),
-                    materialId
-                )
-            );
+            double totalReceivedForProject = balance.getReceivedQty();
 
             // If we apply this update, total issued (all registers) must not exceed what was received
             if (nextTotal > totalReceivedForProject) {
@@ -478,7 +420,7 @@ public class InventoryService {
                         + " to "
                         + entry.getValue()
                         + " in project "
-                        + register.getProject().getCode()
+                        + project.getCode()
                         + " because project balance is only "
                         + projectBalance
                         + "."
@@ -504,22 +446,9 @@ public class InventoryService {
         affectedMaterialIds.addAll(currentRegisterTotals.keySet());
         affectedMaterialIds.addAll(requestedTotals.keySet());
 
+        Map<Long, Double> issuedDiffs = new HashMap<>();
         for (Long materialId : affectedMaterialIds) {
-            Material material = requestedMaterials.get(materialId);
-            if (material == null) {
-                material =
-                    register
-                        .getLines()
-                        .stream()
-                        .filter(line -> line.getMaterial() != null && materialId.equals(line.getMaterial().getId()))
-                        .map(OutwardLine::getMaterial)
-                        .findFirst()
-                        .orElse(null);
-            }
-
-            if (material == null) {
-                continue;
-            }
+            Material material = stock.material(materialId);
 
             double prevQty = currentRegisterTotals.getOrDefault(materialId, 0d);
             double newQty = requestedTotals.getOrDefault(materialId, 0d);
@@ -528,6 +457,7 @@ public class InventoryService {
             if (diff == 0d) {
                 continue;
             }
+            issuedDiffs.put(materialId, diff);
 
             // Optional extra safety: do not exceed global stock
             if (diff > 0d) {
@@ -551,11 +481,15 @@ public class InventoryService {
             }
             material.setUtilizedQty(nextUtilized);
             material.syncBalance();
+
+            ProjectMaterialBalance balance = balances.computeIfAbsent(materialId, id -> stock.balance(material));
+            balance.setIssuedQty(Math.max(0d, balance.getIssuedQty() + diff));
         }
 
-        // 5) Replace lines and update register meta-data
-        register.getLines().clear();
-        register.getLines().addAll(nextLines);
+        // 5) Apply the diff: untouched lines stay as they are, so only changed, added and removed rows are written
+        register.getLines().removeIf(line -> !keptLineIds.contains(line.getId()));
+        changedQuantities.forEach(OutwardLine::setIssueQty);
+        register.getLines().addAll(addedLines);
 
         if (StringUtils.hasText(request.status())) {
             register.setStatus(OutwardStatus.valueOf(request.status()));
@@ -571,16 +505,25 @@ public class InventoryService {
         }
 
         outwardRegisterRepository.save(register);
+        stockJournal.append(
+            StockMovementType.OUTWARD_EDIT,
+            register.getId(),
+            project.getId(),
+            register.getDate(),
+            issuedDeltas(issuedDiffs)
+        );
+        changeLogService.recordUpsert(ChangeEntityType.OUTWARD, register.getId(), project.getId());
+        changeLogService.recordStockMovement(project, movedMaterials(balances));
     }
 
 
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void registerTransfer(TransferRequest request) {
         if (!StringUtils.hasText(request.toProjectId())) {
             throw new BadRequestException("Destination project is required");
         }
-        Project fromProject = requireProject(request.fromProjectId());
-        Project toProject = requireProject(request.toProjectId());
+        Long fromProjectId = parseLong(request.fromProjectId());
+        Long toProjectId = parseLong(request.toProjectId());
 
         if (request.lines() == null || request.lines().isEmpty()) {
             throw new BadRequestException("At least one transfer line is required");
@@ -589,7 +532,8 @@ public class InventoryService {
         String fromSite = StringUtils.hasText(request.fromSite()) ? request.fromSite().trim() : null;
         String toSite = StringUtils.hasText(request.toSite()) ? request.toSite().trim() : null;
 
-        if (fromProject.getId().equals(toProject.getId())) {
+        boolean sameProject = fromProjectId.equals(toProjectId);
+        if (sameProject) {
             if (!StringUtils.hasText(fromSite) || !StringUtils.hasText(toSite)) {
                 throw new BadRequestException("Provide both source and destination sites when transferring within a project");
             }
@@ -598,78 +542,293 @@ public class InventoryService {
             }
         }
 
+        LocalDate today = LocalDate.now();
+        List<String> transferredMaterialIds = request
+            .lines()
+            .stream()
+            .filter(lineReq -> lineReq.transferQty() > 0)
+            .map(TransferLineRequest::materialId)
+            .toList();
+        // Both legs are locked in one ordered batch so opposite transfers cannot deadlock
+        lockStock(
+            sameProject ? List.of(fromProjectId) : List.of(fromProjectId, toProjectId),
+            transferredMaterialIds,
+            new OutwardDayKey(fromProjectId, today)
+        );
+        Project fromProject = requireProject(fromProjectId);
+        Project toProject = requireProject(toProjectId);
+        Map<Long, Material> materials = lockMaterials(transferredMaterialIds);
+        StockPreload source = preload(fromProject, materials);
+        StockPreload destination = sameProject ? source : preload(toProject, materials);
+
         TransferRecord record = new TransferRecord();
-        record.setCode(resolveOrGenerateCode(request.code(), () -> generateCodes().transferCode()));
+        record.setCode(resolveOrGenerateCode(request.code(), TRANSFER_PREFIX));
         record.setFromProject(fromProject);
         record.setToProject(toProject);
         record.setFromSite(fromSite);
         record.setToSite(toSite);
         record.setRemarks(request.remarks());
-        record.setTransferDate(LocalDate.now());
+        record.setTransferDate(today);
 
+        // Quantity moved per material; repeated lines of a material move together
+        Map<Long, Double> quantities = new LinkedHashMap<>();
         List<TransferLine> lines = new ArrayList<>();
-        List<OutwardLineRequest> outwardLines = new ArrayList<>();
-        List<InwardLineRequest> inwardLines = new ArrayList<>();
+        for (TransferLineRequest lineReq : request.lines()) {
+            if (lineReq.transferQty() <= 0) {
+                continue;
+            }
+            Material material = source.material(lineReq.materialId());
+            TransferLine line = new TransferLine();
+            line.setRecord(record);
+            line.setMaterial(material);
+            line.setTransferQty(lineReq.transferQty());
+            lines.add(line);
+            quantities.merge(material.getId(), lineReq.transferQty(), Double::sum);
+        }
 
-        request
-            .lines()
-            .forEach(lineReq -> {
-                if (lineReq.transferQty() <= 0) {
-                    return;
-                }
-                Material material = requireMaterial(lineReq.materialId());
-                TransferLine line = new TransferLine();
-                line.setRecord(record);
-                line.setMaterial(material);
-                line.setTransferQty(lineReq.transferQty());
-                lines.add(line);
+        if (lines.isEmpty()) {
+            throw new BadRequestException("Transfer quantity must be greater than zero");
+        }
+        record.setLines(lines);
 
-                outwardLines.add(new OutwardLineRequest(lineReq.materialId(), lineReq.transferQty()));
-                inwardLines.add(new InwardLineRequest(lineReq.materialId(), 0d, lineReq.transferQty()));
+        // Outward (source) and inward (destination) documents that accompany the transfer
+        OutwardRegister register = lockOutwardRegister(fromProject, today, List.of(fromProjectId, toProjectId))
+            .orElseGet(() -> {
+                OutwardRegister fresh = new OutwardRegister();
+                fresh.setProject(fromProject);
+                fresh.setDate(today);
+                fresh.setCode(resolveOrGenerateCode(null, OUTWARD_PREFIX));
+                fresh.setStatus(OutwardStatus.OPEN);
+                return fresh;
             });
+        if (register.getStatus() == OutwardStatus.CLOSED) {
+            throw new BadRequestException("Outward register already closed for this date");
+        }
+        register.setIssueTo("Transfer to " + toProject.getCode());
+        Map<Long, OutwardLine> issuedLines = register
+            .getLines()
+            .stream()
+            .collect(Collectors.toMap(line -> line.getMaterial().getId(), line -> line));
 
-        if (lines.isEmpty()) {
-            throw new BadRequestException("Transfer quantity must be greater than zero");
+        InwardRecord receipt = new InwardRecord();
+        receipt.setCode(resolveOrGenerateCode(null, INWARD_PREFIX));
+        receipt.setProject(toProject);
+        receipt.setType(InwardType.RETURN);
+        receipt.setRemarks("Transfer from " + fromProject.getCode());
+        receipt.setSupplierName(fromProject.getName());
+        receipt.setEntryDate(today);
+        List<InwardLine> receivedLines = new ArrayList<>();
+
+        // Every material is checked and booked on the source before any is received at the destination
+        quantities.forEach((materialId, qty) -> {
+            Material material = materials.get(materialId);
+            issueStock(source, material, source.balance(material), qty);
+
+            OutwardLine line = issuedLines.get(materialId);
+            if (line == null) {
+                line = new OutwardLine();
+                line.setRegister(register);
+                line.setMaterial(material);
+                line.setIssueQty(0d);
+                register.getLines().add(line);
+                issuedLines.put(materialId, line);
+            }
+            line.setIssueQty(line.getIssueQty() + qty);
+        });
+        quantities.forEach((materialId, qty) -> {
+            Material material = materials.get(materialId);
+            receiveStock(destination, material, destination.balance(material), 0d, qty);
+
+            InwardLine line = new InwardLine();
+            line.setRecord(receipt);
+            line.setMaterial(material);
+            line.setOrderedQty(0d);
+            line.setReceivedQty(qty);
+            receivedLines.add(line);
+        });
+        receipt.setLines(receivedLines);
+
+        TransferRecord saved = transferRecordRepository.save(record);
+        OutwardRegister savedRegister = outwardRegisterRepository.save(register);
+        InwardRecord savedReceipt = inwardRecordRepository.save(receipt);
+
+        // Journal locks are taken in project id order, like every other lock on project rows
+        Runnable journalOut = () ->
+            stockJournal.append(StockMovementType.TRANSFER_OUT, saved.getId(), fromProjectId, today, issuedDeltas(quantities));
+        Runnable journalIn = () ->
+            stockJournal.append(StockMovementType.TRANSFER_IN, saved.getId(), toProjectId, today, receivedDeltas(receivedLines));
+        if (fromProjectId < toProjectId) {
+            journalOut.run();
+            journalIn.run();
+        } else {
+            journalIn.run();
+            journalOut.run();
         }
 
-        // Persist the transfer record
-        record.setLines(lines);
-        transferRecordRepository.save(record);
-
-        // Auto-create outward (source) and inward (destination) movements based on the transfer
-        registerOutward(
-            new OutwardRequest(
-                null,
-                request.fromProjectId(),
-                "Transfer to " + toProject.getCode(),
-                null,
-                null,
-                null,
-                outwardLines
-            )
-        );
+        changeLogService.recordUpsert(ChangeEntityType.TRANSFER, saved.getId(), fromProject.getId(), toProject.getId());
+        changeLogService.recordUpsert(ChangeEntityType.OUTWARD, savedRegister.getId(), fromProject.getId());
+        changeLogService.recordUpsert(ChangeEntityType.INWARD, savedReceipt.getId(), toProject.getId());
+        changeLogService.recordStockMovement(fromProject, materials.values());
+        if (!sameProject) {
+            changeLogService.recordStockMovement(toProject, materials.values());
+        }
+    }
 
-        registerInward(
-            new InwardRequest(
-                null,
-                request.toProjectId(),
-                InwardType.RETURN.name(),
-                null,
-                null,
-                null,
-                null,
-                "Transfer from " + fromProject.getCode(),
-                fromProject.getName(),
-                inwardLines
-            )
-        );
+    /**
+     * Checks a receipt against the project's BOM allocation and books it on the material and the
+     * ledger row.
+     */
+    private void receiveStock(
+        StockPreload stock,
+        Material material,
+        ProjectMaterialBalance balance,
+        double orderedQty,
+        double receivedQty
+    ) {
+        // Total BOM allocation for this material in this project
+        double allocation = stock.allocation(material);
+
+        /*
+        * 1) Check ORDERED quantity against allocation
+        *    totalOrdered = alreadyOrdered (ledger) + newOrderedQty
+        *    must be <= allocation
+        */
+        double nextOrderedTotal = balance.getOrderedQty() + orderedQty;
+
+        if (nextOrderedTotal > allocation) {
+            throw new BadRequestException(
+                "Ordering "
+                    + material.getCode()
+                    + " exceeds the allocated requirement ("
+                    + allocation
+                    + "). Please reduce the ordered quantity or update the project allocation."
+            );
+        }
+
+        /*
+        * 2) Check RECEIVED quantity against allocation
+        *    totalReceived = alreadyReceived (ledger) + newReceivedQty
+        *    must be <= allocation
+        */
+        double nextReceivedTotal = balance.getReceivedQty() + receivedQty;
+
+        if (nextReceivedTotal > allocation) {
+            throw new BadRequestException(
+                "Receiving "
+                    + material.getCode()
+                    + " exceeds the allocated requirement. Please submit a procurement request."
+            );
+        }
+
+        // Update material aggregates
+        if (orderedQty > 0d) {
+            material.setOrderedQty(material.getOrderedQty() + orderedQty);
+        }
+        if (receivedQty > 0d) {
+            material.setReceivedQty(material.getReceivedQty() + receivedQty);
+        }
+        material.syncBalance();
+
+        // Keep the ledger in step
+        balance.setOrderedQty(nextOrderedTotal);
+        balance.setReceivedQty(nextReceivedTotal);
     }
 
-    private String resolveOrGenerateCode(String requested, Supplier<String> generator) {
-        if (StringUtils.hasText(requested)) {
+    /**
+     * Checks an issue against the project balance, the global stock and the project's BOM
+     * allocation, and books it on the material and the ledger row.
+     */
+    private void issueStock(StockPreload stock, Material material, ProjectMaterialBalance balance, double issueQty) {
+        Project project = stock.project;
+
+        // 1) Project-wise received & already issued (from the ledger)
+        double alreadyIssued = balance.getIssuedQty();
+
+        // Project-wise balance BEFORE this line is processed
+        double projectBalance = balance.getReceivedQty() - alreadyIssued;
+        if (projectBalance <= 0d) {
+            throw new BadRequestException(
+                "No balance available for material "
+                    + material.getCode()
+                    + " in project "
+                    + project.getCode()
+            );
+        }
+
+        // Also ensure we don't exceed global stock
+        double globalAvailable = material.getBalanceQty();
+        double effectiveAvailable = Math.min(projectBalance, globalAvailable);
+
+        if (issueQty > effectiveAvailable) {
+            throw new BadRequestException(
+                "Cannot issue " + issueQty + " " + material.getUnit()
+                    + " of " + material.getCode()
+                    + " for project " + project.getCode()
+                    + ". Available quantity for this project is "
+                    + effectiveAvailable + "."
+            );
+        }
+
+        // 2) BOM allocation check
+        double allocation = stock.allocation(material);
+        double nextTotal = alreadyIssued + issueQty;
+
+        if (nextTotal > allocation) {
+            throw new BadRequestException(
+                "Issuing " + material.getCode()
+                    + " exceeds the allocated requirement ("
+                    + allocation
+                    + "). Please request an increase before issuing more."
+            );
+        }
+
+        // 3) Update material aggregates and the ledger
+        material.setUtilizedQty(material.getUtilizedQty() + issueQty);
+        material.syncBalance();
+        balance.setIssuedQty(nextTotal);
+    }
+
+    private static Map<Long, ProjectMaterialTotals> receivedDeltas(List<InwardLine> lines) {
+        Map<Long, ProjectMaterialTotals> deltas = new HashMap<>();
+        for (InwardLine line : lines) {
+            deltas.merge(
+                line.getMaterial().getId(),
+                new ProjectMaterialTotals(line.getOrderedQty(), line.getReceivedQty(), 0d),
+                ProjectMaterialTotals::plus
+            );
+        }
+        return deltas;
+    }
+
+    private static Map<Long, ProjectMaterialTotals> issuedDeltas(Map<Long, Double> quantities) {
+        Map<Long, ProjectMaterialTotals> deltas = new HashMap<>();
+        quantities.forEach((materialId, qty) -> deltas.put(materialId, new ProjectMaterialTotals(0d, 0d, qty)));
+        return deltas;
+    }
+
+    private List<Material> movedMaterials(Map<Long, ProjectMaterialBalance> balances) {
+        return balances.values().stream().map(ProjectMaterialBalance::getMaterial).toList();
+    }
+
+    /**
+     * Keeps a manually entered code. A code in the daily format is only the preview the client was
+     * shown, which concurrent clients share, so a fresh number is allocated instead.
+     */
+    private String resolveOrGenerateCode(String requested, String prefix) {
+        if (StringUtils.hasText(requested) && !DAILY_CODE.matcher(requested.trim()).matches()) {
             return requested.trim();
         }
-        return generator.get();
+        LocalDate today = LocalDate.now();
+        return buildDailyCode(prefix, today, codeAllocator.next(prefix, today, issuedBefore(prefix, today)));
+    }
+
+    private LongSupplier issuedBefore(String prefix, LocalDate date) {
+        return switch (prefix) {
+            case INWARD_PREFIX -> () -> inwardRecordRepository.countByEntryDate(date);
+            case OUTWARD_PREFIX -> () -> outwardRegisterRepository.countByDate(date);
+            case TRANSFER_PREFIX -> () -> transferRecordRepository.countByTransferDate(date);
+            default -> () -> 0;
+        };
     }
 
     private String buildDailyCode(String prefix, LocalDate date, long sequence) {
@@ -677,26 +836,110 @@ public class InventoryService {
         return String.format("%s-%s-%03d", prefix, CODE_DATE.format(date), safeSequence);
     }
 
-    private Project requireProject(String id) {
-        return projectRepository.findById(parseLong(id)).orElseThrow(() -> new NotFoundException("Project not found"));
+    private Project requireProject(Long id) {
+        return projectRepository.findById(id).orElseThrow(() -> new NotFoundException("Project not found"));
     }
 
-    private Material requireMaterial(String id) {
-        return materialRepository.findById(parseLong(id)).orElseThrow(() -> new NotFoundException("Material not found"));
+    /** Loads the materials FOR UPDATE: their stock counters are shared by every project. */
+    private Map<Long, Material> lockMaterials(Collection<String> ids) {
+        Set<Long> materialIds = ids.stream().map(this::parseLong).collect(Collectors.toSet());
+        if (materialIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<Long, Material> materials = materialRepository
+            .lockAllById(materialIds)
+            .stream()
+            .collect(Collectors.toMap(Material::getId, material -> material));
+        if (materials.size() != materialIds.size()) {
+            throw new NotFoundException("Material not found");
+        }
+        return materials;
     }
 
-    private double requireBomAllocation(Project project, Material material) {
-        if (project == null || material == null) {
-            throw new BadRequestException("Project and material are required");
+    /**
+     * Reads the project's register for the day FOR UPDATE. When there is none yet the project rows of
+     * the request are locked, in id order, and the lookup repeated, so two first posts of the day on
+     * different nodes do not both create one.
+     */
+    private Optional<OutwardRegister> lockOutwardRegister(Project project, LocalDate date, Collection<Long> projectIds) {
+        Optional<OutwardRegister> register = outwardRegisterRepository.lockByProjectIdAndDate(project.getId(), date);
+        if (register.isPresent()) {
+            return register;
         }
-        BomLine line = bomLineRepository
-            .findByProjectIdAndMaterialId(project.getId(), material.getId())
-            .orElseThrow(() -> new BadRequestException("Material " + material.getCode() + " is not allocated to this project"));
-        return line.getQuantity();
+        projectRepository.lockAllById(projectIds);
+        return outwardRegisterRepository.lockByProjectIdAndDate(project.getId(), date);
     }
 
-    private double safeDouble(Double value) {
-        return value != null ? value : 0d;
+    /**
+     * Loads the BOM allocations and ledger rows for materials that are already locked, so the per-line
+     * checks run in memory: two queries whatever the number of lines.
+     */
+    private StockPreload preload(Project project, Map<Long, Material> materials) {
+        Map<Long, Double> allocations = new HashMap<>();
+        if (!materials.isEmpty()) {
+            bomLineRepository
+                .findByProjectIdAndMaterialIdIn(project.getId(), materials.keySet())
+                .forEach(line -> allocations.put(line.getMaterial().getId(), line.getQuantity()));
+        }
+        return new StockPreload(
+            project,
+            materials,
+            allocations,
+            balanceService.lockForProject(project.getId(), materials.keySet())
+        );
+    }
+
+    private void lockStock(Collection<Long> projectIds, Collection<String> materialIds, Object... extraKeys) {
+        List<Object> keys = new ArrayList<>();
+        for (Long projectId : projectIds) {
+            materialIds.forEach(id -> keys.add(new ProjectMaterialKey(projectId, parseLong(id))));
+        }
+        keys.addAll(List.of(extraKeys));
+        stockLocks.lockUntilCompletion(keys);
+    }
+
+    private final class StockPreload {
+
+        private final Project project;
+        private final Map<Long, Material> materials;
+        private final Map<Long, Double> allocations;
+        private final Map<Long, ProjectMaterialBalance> balances;
+
+        private StockPreload(
+            Project project,
+            Map<Long, Material> materials,
+            Map<Long, Double> allocations,
+            Map<Long, ProjectMaterialBalance> balances
+        ) {
+            this.project = project;
+            this.materials = materials;
+            this.allocations = allocations;
+            this.balances = balances;
+        }
+
+        Material material(String id) {
+            return material(parseLong(id));
+        }
+
+        Material material(Long id) {
+            Material material = materials.get(id);
+            if (material == null) {
+                throw new NotFoundException("Material not found");
+            }
+            return material;
+        }
+
+        double allocation(Material material) {
+            Double allocation = allocations.get(material.getId());
+            if (allocation == null) {
+                throw new BadRequestException("Material " + material.getCode() + " is not allocated to this project");
+            }
+            return allocation;
+        }
+
+        ProjectMaterialBalance balance(Material material) {
+            return balances.computeIfAbsent(material.getId(), id -> balanceService.create(project, material));
+        }
     }
 
     private LocalDate parseDate(String date) {
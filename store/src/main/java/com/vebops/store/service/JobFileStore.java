@@ -0,0 +1,58 @@
+package com.vebops.store.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local directory holding job uploads and results. Files are named by random tokens that the job
+ * row records, so a job only becomes visible to workers once its input is completely on disk.
+ */
+@Component
+public class JobFileStore {
+
+    private final Path root;
+
+    public JobFileStore(@Value("${app.jobs.storage-dir:${java.io.tmpdir}/store-jobs}") String root) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+    }
+
+    public String store(InputStream content, String extension) throws IOException {
+        Files.createDirectories(root);
+        String name = UUID.randomUUID() + extension;
+        Path staged = root.resolve(name + ".part");
+        Files.copy(content, staged, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(staged, root.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        return name;
+    }
+
+    public String newName(String extension) throws IOException {
+        Files.createDirectories(root);
+        return UUID.randomUUID() + extension;
+    }
+
+    public Path resolve(String name) {
+        Path path = root.resolve(name).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid job file name");
+        }
+        return path;
+    }
+
+    public void delete(String name) {
+        if (name == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(resolve(name));
+        } catch (IOException ignored) {
+            // a leftover file is harmless; the next cleanup retries
+        }
+    }
+}
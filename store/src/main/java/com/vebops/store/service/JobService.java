@@ -0,0 +1,356 @@
+package com.vebops.store.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vebops.store.dto.JobDto;
+import com.vebops.store.dto.MaterialImportError;
+import com.vebops.store.dto.MaterialImportResult;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.exception.NotFoundException;
+import com.vebops.store.model.BackgroundJob;
+import com.vebops.store.model.JobStatus;
+import com.vebops.store.model.JobType;
+import com.vebops.store.model.Role;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.repository.BackgroundJobRepository;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Runs imports and exports on a bounded worker pool instead of request threads. Submitting stores
+ * the input and a QUEUED job row and returns at once; clients poll the job for counters and download
+ * the result once it has SUCCEEDED. A worker claims a job with a conditional update, so a job runs
+ * once even if it is dispatched twice. Input and results sit in this node's file store, so a job is
+ * owned by the node that accepted it ({@code app.jobs.node-id}, which must stay stable across
+ * restarts and differ between nodes): only the owner claims, re-queues and cleans it up. Jobs that
+ * were RUNNING when the owner stopped are queued again when it starts; imports continue after their
+ * last committed chunk. Jobs the pool could not take stay QUEUED and are picked up by the periodic sweep.
+ */
+@Service
+public class JobService {
+
+    public record JobResult(Path path, String fileName) {}
+
+    private static final Logger log = LoggerFactory.getLogger(JobService.class);
+
+    private static final String XLSX = ".xlsx";
+    private static final TypeReference<List<MaterialImportError>> ERROR_LIST = new TypeReference<>() {};
+
+    private final BackgroundJobRepository jobRepository;
+    private final JobFileStore fileStore;
+    private final MaterialImporter materialImporter;
+    private final MaterialExporter materialExporter;
+    private final MaterialCatalogIndex catalogIndex;
+    private final ObjectMapper objectMapper;
+    private final RuntimeMetrics metrics;
+    private final TransactionTemplate tx;
+    private final ThreadPoolExecutor workers;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final int retentionDays;
+    private final String nodeId;
+
+    public JobService(
+        BackgroundJobRepository jobRepository,
+        JobFileStore fileStore,
+        MaterialImporter materialImporter,
+        MaterialExporter materialExporter,
+        MaterialCatalogIndex catalogIndex,
+        ObjectMapper objectMapper,
+        RuntimeMetrics metrics,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.jobs.workers:2}") int workerCount,
+        @Value("${app.jobs.queue-capacity:100}") int queueCapacity,
+        @Value("${app.jobs.retention-days:7}") int retentionDays,
+        @Value("${app.jobs.node-id:${HOSTNAME:local}}") String nodeId
+    ) {
+        this.jobRepository = jobRepository;
+        this.fileStore = fileStore;
+        this.materialImporter = materialImporter;
+        this.materialExporter = materialExporter;
+        this.catalogIndex = catalogIndex;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.retentionDays = retentionDays;
+        this.nodeId = nodeId;
+        AtomicInteger threadNumber = new AtomicInteger();
+        int size = Math.max(1, workerCount);
+        this.workers = new ThreadPoolExecutor(
+            size,
+            size,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "job-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+    }
+
+    public JobDto submitMaterialImport(UserAccount user, MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("An Excel file is required");
+        }
+        String inputName;
+        try (InputStream content = file.getInputStream()) {
+            inputName = fileStore.store(content, ".upload");
+        } catch (IOException ex) {
+            throw new BadRequestException("Unable to store the uploaded file");
+        }
+        return submit(user, JobType.MATERIAL_IMPORT, inputName);
+    }
+
+    public JobDto submitMaterialExport(UserAccount user) {
+        return submit(user, JobType.MATERIAL_EXPORT, null);
+    }
+
+    public JobDto get(UserAccount user, Long id) {
+        return toDto(requireVisible(user, id));
+    }
+
+    public List<JobDto> recent(UserAccount user) {
+        return jobRepository.findTop20ByUserIdOrderByIdDesc(user.getId()).stream().map(this::toDto).toList();
+    }
+
+    public JobResult result(UserAccount user, Long id) {
+        BackgroundJob job = requireVisible(user, id);
+        if (job.getStatus() != JobStatus.SUCCEEDED || job.getResultName() == null) {
+            throw new BadRequestException("This job has no result to download");
+        }
+        if (!nodeId.equals(job.getOwnerNode())) {
+            throw new NotFoundException("The job result is only available from the server that ran the job");
+        }
+        Path path = fileStore.resolve(job.getResultName());
+        if (!Files.exists(path)) {
+            throw new NotFoundException("The job result is no longer available");
+        }
+        return new JobResult(path, job.getType() == JobType.MATERIAL_EXPORT ? "materials.xlsx" : job.getResultName());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        // Rows from before jobs had an owner were written by the single node that ran them
+        tx.executeWithoutResult(status -> jobRepository.adoptUnowned(nodeId));
+        Integer requeued = tx.execute(status -> jobRepository.requeueRunning(nodeId));
+        if (requeued != null && requeued > 0) {
+            log.info("Re-queued {} background jobs interrupted by a restart", requeued);
+        }
+        dispatchQueued();
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.dispatch-interval-ms:30000}", initialDelayString = "${app.jobs.dispatch-interval-ms:30000}")
+    public void dispatchQueued() {
+        for (BackgroundJob job : jobRepository.findByOwnerNodeAndStatusOrderByIdAsc(nodeId, JobStatus.QUEUED)) {
+            dispatch(job.getId());
+        }
+    }
+
+    @Scheduled(cron = "${app.jobs.cleanup-cron:0 45 2 * * *}")
+    public void deleteExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        for (BackgroundJob job : jobRepository.findByOwnerNodeAndFinishedAtBefore(nodeId, cutoff)) {
+            fileStore.delete(job.getInputName());
+            fileStore.delete(job.getResultName());
+            jobRepository.delete(job);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private JobDto submit(UserAccount user, JobType type, String inputName) {
+        BackgroundJob job = new BackgroundJob();
+        job.setType(type);
+        job.setStatus(JobStatus.QUEUED);
+        job.setUserId(user.getId());
+        job.setOwnerNode(nodeId);
+        job.setInputName(inputName);
+        job.setCreatedAt(LocalDateTime.now());
+        BackgroundJob saved = tx.execute(status -> jobRepository.save(job));
+        dispatch(saved.getId());
+        return toDto(saved);
+    }
+
+    private void dispatch(Long jobId) {
+        if (!inFlight.add(jobId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    inFlight.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(jobId);
+            metrics.increment("jobs.rejected");
+        }
+    }
+
+    private void run(Long jobId) {
+        Integer claimed = tx.execute(status -> jobRepository.claim(jobId, nodeId, LocalDateTime.now()));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+        BackgroundJob job = tx.execute(status -> jobRepository.findById(jobId).orElseThrow());
+        long started = System.nanoTime();
+        try {
+            switch (job.getType()) {
+                case MATERIAL_IMPORT -> runImport(job);
+                case MATERIAL_EXPORT -> runExport(job);
+            }
+        } catch (BadRequestException ex) {
+            finish(jobId, JobStatus.FAILED, ex.getMessage());
+        } catch (Exception ex) {
+            log.error("Background job {} failed", jobId, ex);
+            finish(jobId, JobStatus.FAILED, "The job failed unexpectedly");
+        } finally {
+            metrics.record("jobs." + job.getType().name().toLowerCase(), System.nanoTime() - started);
+        }
+    }
+
+    private void runImport(BackgroundJob job) {
+        Long jobId = job.getId();
+        MaterialImportResult resumeFrom = new MaterialImportResult(
+            (int) job.getCreatedCount(),
+            (int) job.getUpdatedCount(),
+            (int) job.getFailedCount(),
+            readErrors(job.getErrorsJson())
+        );
+        MaterialImportResult result;
+        try {
+            result = materialImporter.importFile(
+                fileStore.resolve(job.getInputName()),
+                job.getCheckpoint(),
+                resumeFrom,
+                (lastRow, totals) -> {
+                    BackgroundJob current = jobRepository.findById(jobId).orElseThrow();
+                    current.setCheckpoint(lastRow);
+                    applyTotals(current, lastRow, totals);
+                }
+            );
+        } finally {
+            catalogIndex.invalidate();
+        }
+        tx.executeWithoutResult(status -> {
+            BackgroundJob current = jobRepository.findById(jobId).orElseThrow();
+            applyTotals(current, current.getCheckpoint(), result);
+            complete(current, JobStatus.SUCCEEDED, null);
+        });
+        fileStore.delete(job.getInputName());
+    }
+
+    private void runExport(BackgroundJob job) throws IOException {
+        Long jobId = job.getId();
+        String resultName = fileStore.newName(XLSX);
+        try (OutputStream out = Files.newOutputStream(fileStore.resolve(resultName))) {
+            materialExporter.write(
+                out,
+                rows ->
+                    tx.executeWithoutResult(status -> jobRepository.findById(jobId).ifPresent(current -> current.setProcessedCount(rows)))
+            );
+        } catch (IOException | RuntimeException ex) {
+            fileStore.delete(resultName);
+            throw ex;
+        }
+        tx.executeWithoutResult(status -> {
+            BackgroundJob current = jobRepository.findById(jobId).orElseThrow();
+            current.setResultName(resultName);
+            complete(current, JobStatus.SUCCEEDED, null);
+        });
+    }
+
+    private void finish(Long jobId, JobStatus status, String message) {
+        tx.executeWithoutResult(txStatus -> jobRepository.findById(jobId).ifPresent(job -> complete(job, status, message)));
+    }
+
+    private void complete(BackgroundJob job, JobStatus status, String message) {
+        job.setStatus(status);
+        job.setMessage(message != null && message.length() > 1000 ? message.substring(0, 1000) : message);
+        job.setFinishedAt(LocalDateTime.now());
+    }
+
+    private void applyTotals(BackgroundJob job, int lastRow, MaterialImportResult totals) {
+        // The checkpoint counts the header row too
+        job.setProcessedCount(Math.max(0, lastRow - 1));
+        job.setCreatedCount(totals.created());
+        job.setUpdatedCount(totals.updated());
+        job.setFailedCount(totals.failed());
+        job.setErrorsJson(totals.errors().isEmpty() ? null : writeErrors(totals.errors()));
+    }
+
+    private BackgroundJob requireVisible(UserAccount user, Long id) {
+        BackgroundJob job = jobRepository.findById(id).orElseThrow(() -> new NotFoundException("Job not found"));
+        if (!job.getUserId().equals(user.getId()) && user.getRole() != Role.ADMIN) {
+            throw new NotFoundException("Job not found");
+        }
+        return job;
+    }
+
+    private JobDto toDto(BackgroundJob job) {
+        return new JobDto(
+            String.valueOf(job.getId()),
+            job.getType().name(),
+            job.getStatus().name(),
+            job.getProcessedCount(),
+            job.getCreatedCount(),
+            job.getUpdatedCount(),
+            job.getFailedCount(),
+            readErrors(job.getErrorsJson()),
+            job.getMessage(),
+            job.getStatus() == JobStatus.SUCCEEDED && job.getResultName() != null,
+            job.getCreatedAt() != null ? job.getCreatedAt().toString() : null,
+            job.getStartedAt() != null ? job.getStartedAt().toString() : null,
+            job.getFinishedAt() != null ? job.getFinishedAt().toString() : null
+        );
+    }
+
+    private List<MaterialImportError> readErrors(String json) {
+        if (json == null || json.isBlank()) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(json, ERROR_LIST);
+        } catch (JsonProcessingException ex) {
+            return List.of();
+        }
+    }
+
+    private String writeErrors(List<MaterialImportError> errors) {
+        try {
+            return objectMapper.writeValueAsString(errors);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialize import errors", ex);
+        }
+    }
+}
@@ -0,0 +1,568 @@
+package com.vebops.store.service;
+
+import com.vebops.store.model.MaterialCatalogRevision;
+import com.vebops.store.repository.MaterialRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * In-memory n-gram index over material code, name and part number for typeahead search. Entries are
+ * kept in (lowercased code, id) order and every 1-, 2- and 3-gram maps to an ascending list of entry positions, so a
+ * query of up to three characters is a single posting list and longer queries intersect their
+ * trigrams before a final substring check. The index is built from a scalar projection in its own
+ * read-only transaction, so no entity joins a request's persistence context. A committed change
+ * schedules a rebuild on a background thread; a search that arrives before it finishes waits up to
+ * {@code app.materials.index.max-wait-ms} for it, so a client sees its own edit, and falls back to the
+ * previous snapshot after that. Changes made on another node are picked up through a shared revision
+ * row that writers bump and searches re-read at most every {@code app.materials.index.freshness-check-ms}. Facet counts are gathered in the same walk over the
+ * candidates; each facet applies the text query and every other facet's filter but not its own, so
+ * the sidebar shows what selecting another value would return.
+ */
+@Component
+public class MaterialCatalogIndex implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(MaterialCatalogIndex.class);
+    private static final int MAX_GRAM = 3;
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::code).thenComparing(Entry::id);
+    private static final String BUMP_SQL =
+        "update material_catalog_revisions set revision = revision + 1 where id = " + MaterialCatalogRevision.ROW_ID;
+    private static final String REVISION_SQL =
+        "select revision from material_catalog_revisions where id = " + MaterialCatalogRevision.ROW_ID;
+
+    public record Page(
+        List<Long> ids,
+        long total,
+        boolean hasPrevious,
+        Map<String, List<String>> filters,
+        Map<String, Map<String, Long>> facetCounts
+    ) {}
+
+    private record Entry(
+        Long id,
+        String code,
+        String name,
+        String partNo,
+        String lineType,
+        String unit,
+        String category
+    ) {
+        boolean contains(String query) {
+            return code.contains(query) || name.contains(query) || partNo.contains(query);
+        }
+    }
+
+    private record Snapshot(long version, Entry[] entries, Map<String, int[]> grams, Map<String, List<String>> filters) {}
+
+    /** Positions of one gram in ascending order, without boxing. */
+    private static final class Postings {
+
+        private int[] positions = new int[4];
+        private int size;
+
+        void add(int position) {
+            if (size > 0 && positions[size - 1] == position) {
+                return;
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+
+    private final MaterialRepository materialRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTx;
+    private final long maxWaitNanos;
+    private final long freshnessCheckNanos;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong knownRevision = new AtomicLong(-1);
+    private final AtomicLong lastFreshnessCheck = new AtomicLong(System.nanoTime());
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ReentrantLock swapLock = new ReentrantLock();
+    private final Condition swapped = swapLock.newCondition();
+    private final ExecutorService rebuilder;
+    private volatile Snapshot snapshot;
+
+    // Depends on the entity manager factory so the schema update has created the revision table
+    public MaterialCatalogIndex(
+        MaterialRepository materialRepository,
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        EntityManagerFactory entityManagerFactory,
+        @Value("${app.materials.index.max-wait-ms:2000}") long maxWaitMs,
+        @Value("${app.materials.index.freshness-check-ms:1000}") long freshnessCheckMs
+    ) {
+        this.materialRepository = materialRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.freshnessCheckNanos = TimeUnit.MILLISECONDS.toNanos(freshnessCheckMs);
+        this.rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "material-catalog-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Seeds the revision row; another node starting at the same time may have inserted it first. */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!jdbcTemplate.queryForList(REVISION_SQL, Long.class).isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("insert into material_catalog_revisions (id, revision) values (?, 0)", MaterialCatalogRevision.ROW_ID);
+        } catch (DuplicateKeyException ignored) {
+            // Seeded concurrently
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Marks the index stale once the current transaction commits and bumps the shared revision inside
+     * it. The bump runs before the change log's own beforeCommit work, so catalog writers always take
+     * the revision row ahead of the change log counter.
+     */
+    public void invalidate() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            jdbcTemplate.update(BUMP_SQL);
+            markStale();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE - 1;
+            }
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                jdbcTemplate.update(BUMP_SQL);
+            }
+
+            @Override
+            public void afterCommit() {
+                markStale();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(MaterialCatalogIndex.this);
+            }
+        });
+    }
+
+    private void markStale() {
+        version.incrementAndGet();
+        scheduleRebuild();
+    }
+
+    public Page search(String search, Collection<String> categories, Collection<String> units, Collection<String> lineTypes, int offset, int limit) {
+        return walk(current(), search, categories, units, lineTypes, 0, offset, limit, true);
+    }
+
+    /**
+     * Keyset variant: returns up to {@code limit} ids that sort after ({@code afterCode}, {@code afterId}).
+     * Without {@code includeTotal} the walk stops once the page is full, so total is -1 and no facet
+     * counts are gathered.
+     */
+    public Page seek(
+        String search,
+        Collection<String> categories,
+        Collection<String> units,
+        Collection<String> lineTypes,
+        String afterCode,
+        long afterId,
+        int limit,
+        boolean includeTotal
+    ) {
+        Snapshot current = current();
+        int start = firstAfter(current.entries(), afterCode.toLowerCase(Locale.ROOT), afterId);
+        return walk(current, search, categories, units, lineTypes, start, 0, limit, includeTotal);
+    }
+
+    private Page walk(
+        Snapshot current,
+        String search,
+        Collection<String> categories,
+        Collection<String> units,
+        Collection<String> lineTypes,
+        int startPosition,
+        int offset,
+        int limit,
+        boolean full
+    ) {
+        String query = StringUtils.hasText(search) ? search.trim().toLowerCase(Locale.ROOT) : "";
+        Set<String> categoryFilter = normalizeFilter(categories);
+        Set<String> unitFilter = normalizeFilter(units);
+        Set<String> lineTypeFilter = normalizeFilter(lineTypes);
+
+        int[] candidates = candidates(current, query);
+        int from = 0;
+        if (!full) {
+            int found = Arrays.binarySearch(candidates, startPosition);
+            from = found >= 0 ? found : -found - 1;
+        }
+        boolean verify = query.length() > MAX_GRAM;
+        List<Long> ids = new ArrayList<>(Math.max(0, Math.min(limit, 101)));
+        Map<String, Long> categoryCounts = new TreeMap<>();
+        Map<String, Long> unitCounts = new TreeMap<>();
+        Map<String, Long> lineTypeCounts = new TreeMap<>();
+        long total = 0;
+        long skipped = 0;
+        boolean hasPrevious = false;
+        if (!full) {
+            // Only the nearest match before the cursor matters, so walk back until one is found
+            for (int i = from - 1; i >= 0 && !hasPrevious; i--) {
+                Entry entry = current.entries()[candidates[i]];
+                hasPrevious = (!verify || entry.contains(query))
+                    && matches(categoryFilter, entry.category())
+                    && matches(unitFilter, entry.unit())
+                    && matches(lineTypeFilter, entry.lineType());
+            }
+        }
+        for (int i = from; i < candidates.length; i++) {
+            int position = candidates[i];
+            Entry entry = current.entries()[position];
+            if (verify && !entry.contains(query)) {
+                continue;
+            }
+            boolean category = matches(categoryFilter, entry.category());
+            boolean unit = matches(unitFilter, entry.unit());
+            boolean lineType = matches(lineTypeFilter, entry.lineType());
+            if (full) {
+                if (unit && lineType) {
+                    count(categoryCounts, entry.category());
+                }
+                if (category && lineType) {
+                    count(unitCounts, entry.unit());
+                }
+                if (category && unit) {
+                    count(lineTypeCounts, entry.lineType());
+                }
+            }
+            if (!category || !unit || !lineType) {
+                continue;
+            }
+            total++;
+            if (position < startPosition) {
+                hasPrevious = true;
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                hasPrevious = true;
+            } else if (ids.size() < limit) {
+                ids.add(entry.id());
+            } else if (!full) {
+                break;
+            }
+        }
+        if (!full) {
+            return new Page(ids, -1, hasPrevious, current.filters(), Map.of());
+        }
+        Map<String, Map<String, Long>> facetCounts = Map.of(
+            "categories",
+            categoryCounts,
+            "units",
+            unitCounts,
+            "lineTypes",
+            lineTypeCounts
+        );
+        return new Page(ids, total, hasPrevious, current.filters(), facetCounts);
+    }
+
+    /** Position of the first entry sorting strictly after the (code, id) tuple. */
+    private static int firstAfter(Entry[] entries, String code, long id) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int byCode = entries[mid].code().compareTo(code);
+            if (byCode < 0 || (byCode == 0 && entries[mid].id() <= id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns a snapshot that includes every change committed on this node, waiting a bounded time for
+     * the background rebuild; only a cold index is built on the caller's thread.
+     */
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = build(version.get());
+                }
+                return snapshot;
+            }
+        }
+        checkFreshness();
+        long wanted = version.get();
+        if (current.version() >= wanted) {
+            return current;
+        }
+        scheduleRebuild();
+        long deadline = System.nanoTime() + maxWaitNanos;
+        swapLock.lock();
+        try {
+            while (snapshot.version() < wanted) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    log.debug("Material catalog index rebuild is still running; serving the previous snapshot");
+                    break;
+                }
+                swapped.awaitNanos(remaining);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            swapLock.unlock();
+        }
+        return snapshot;
+    }
+
+    /** Re-reads the shared revision at most once per interval and marks the index stale if another node moved it. */
+    private void checkFreshness() {
+        long now = System.nanoTime();
+        long last = lastFreshnessCheck.get();
+        if (now - last < freshnessCheckNanos || !lastFreshnessCheck.compareAndSet(last, now)) {
+            return;
+        }
+        Long revision = jdbcTemplate.queryForObject(REVISION_SQL, Long.class);
+        long known = knownRevision.get();
+        if (revision != null && revision > known && knownRevision.compareAndSet(known, revision)) {
+            version.incrementAndGet();
+        }
+    }
+
+    private void swap(Snapshot rebuilt) {
+        swapLock.lock();
+        try {
+            snapshot = rebuilt;
+            swapped.signalAll();
+        } finally {
+            swapLock.unlock();
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (snapshot == null || !rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        rebuilder.execute(() -> {
+            try {
+                long expected;
+                do {
+                    expected = version.get();
+                    swap(build(expected));
+                } while (version.get() != expected);
+            } catch (RuntimeException ex) {
+                log.warn("Material catalog index rebuild failed; the previous snapshot stays in use", ex);
+            } finally {
+                rebuildScheduled.set(false);
+            }
+            // A change committed between the last check and the reset above found the flag still set
+            Snapshot latest = snapshot;
+            if (latest != null && latest.version() != version.get()) {
+                scheduleRebuild();
+            }
+        });
+    }
+
+    private int[] candidates(Snapshot current, String query) {
+        if (query.isEmpty()) {
+            int[] all = new int[current.entries().length];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        if (query.length() <= MAX_GRAM) {
+            return current.grams().getOrDefault(query, new int[0]);
+        }
+        List<int[]> postings = new ArrayList<>();
+        for (String gram : grams(query, MAX_GRAM)) {
+            int[] posting = current.grams().get(gram);
+            if (posting == null) {
+                return new int[0];
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(posting -> posting.length));
+        int[] result = postings.get(0);
+        for (int i = 1; i < postings.size() && result.length > 0; i++) {
+            result = intersect(result, postings.get(i));
+        }
+        return result;
+    }
+
+    private Snapshot build(long expectedVersion) {
+        // The revision is read first, so a change committed while the rows load is caught by the next check
+        List<Object[]> rows = readOnlyTx.execute(status -> {
+            Long revision = jdbcTemplate.queryForObject(REVISION_SQL, Long.class);
+            if (revision != null) {
+                knownRevision.accumulateAndGet(revision, Math::max);
+            }
+            return materialRepository.findCatalogRows();
+        });
+        Entry[] entries = rows
+            .stream()
+            .map(row ->
+                new Entry(
+                    (Long) row[0],
+                    lower((String) row[1]),
+                    lower((String) row[2]),
+                    lower((String) row[3]),
+                    trim((String) row[4]),
+                    trim((String) row[5]),
+                    trim((String) row[6])
+                )
+            )
+            .sorted(ORDER)
+            .toArray(Entry[]::new);
+
+        Map<String, Postings> postings = new HashMap<>();
+        TreeSet<String> categories = new TreeSet<>();
+        TreeSet<String> unitValues = new TreeSet<>();
+        TreeSet<String> lineTypeValues = new TreeSet<>();
+        for (int position = 0; position < entries.length; position++) {
+            Entry entry = entries[position];
+            // Positions only grow, so a gram seen twice in one entry is dropped by Postings.add
+            for (String field : List.of(entry.code(), entry.name(), entry.partNo())) {
+                for (int n = 1; n <= MAX_GRAM; n++) {
+                    for (String gram : grams(field, n)) {
+                        postings.computeIfAbsent(gram, key -> new Postings()).add(position);
+                    }
+                }
+            }
+            addValue(categories, entry.category());
+            addValue(unitValues, entry.unit());
+            addValue(lineTypeValues, entry.lineType());
+        }
+        Map<String, int[]> grams = new HashMap<>(postings.size() * 2);
+        postings.forEach((gram, positions) -> grams.put(gram, positions.toArray()));
+
+        Map<String, List<String>> filters = Map.of(
+            "categories",
+            List.copyOf(categories),
+            "units",
+            List.copyOf(unitValues),
+            "lineTypes",
+            List.copyOf(lineTypeValues)
+        );
+        return new Snapshot(expectedVersion, entries, grams, filters);
+    }
+
+    private static List<String> grams(String value, int n) {
+        if (value.length() < n) {
+            return List.of();
+        }
+        List<String> grams = new ArrayList<>(value.length() - n + 1);
+        for (int i = 0; i + n <= value.length(); i++) {
+            grams.add(value.substring(i, i + n));
+        }
+        return grams;
+    }
+
+    private static int[] intersect(int[] left, int[] right) {
+        int[] result = new int[Math.min(left.length, right.length)];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static Set<String> normalizeFilter(Collection<String> values) {
+        if (values == null) {
+            return Set.of();
+        }
+        Set<String> normalized = new HashSet<>();
+        values.stream().filter(StringUtils::hasText).forEach(value -> normalized.add(value.trim().toLowerCase(Locale.ROOT)));
+        return normalized;
+    }
+
+    private static boolean matches(Set<String> filter, String value) {
+        return filter.isEmpty() || (value != null && filter.contains(value.toLowerCase(Locale.ROOT)));
+    }
+
+    private static void count(Map<String, Long> counts, String value) {
+        if (StringUtils.hasText(value)) {
+            counts.merge(value, 1L, Long::sum);
+        }
+    }
+
+    private static void addValue(Set<String> values, String value) {
+        if (StringUtils.hasText(value)) {
+            values.add(value);
+        }
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+}
@@ -0,0 +1,97 @@
+package com.vebops.store.service;
+
+import com.vebops.store.model.Material;
+import com.vebops.store.repository.MaterialRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.LongConsumer;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes the material catalog as XLSX straight to the response. Rows go through a windowed SXSSF
+ * workbook that spills older rows to a temp file, and materials are read a page at a time by code,
+ * each page in its own short read transaction, so memory stays flat whatever the catalog size.
+ * Columns match the import format.
+ */
+@Component
+public class MaterialExporter {
+
+    private static final int PAGE_SIZE = 1000;
+    private static final int ROW_WINDOW = 200;
+    private static final String[] HEADERS = { "Name", "Part No", "Line Type", "Unit", "Category", "Code" };
+    private static final int[] COLUMN_WIDTHS = { 40, 20, 14, 10, 20, 16 };
+
+    private final MaterialRepository materialRepository;
+    private final TransactionTemplate readOnlyTx;
+
+    public MaterialExporter(MaterialRepository materialRepository, PlatformTransactionManager transactionManager) {
+        this.materialRepository = materialRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public void write(OutputStream out) throws IOException {
+        write(out, rows -> {});
+    }
+
+    /** {@code progress} receives the number of rows written after every page. */
+    public void write(OutputStream out, LongConsumer progress) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        try {
+            Sheet sheet = workbook.createSheet("Materials");
+            // autoSizeColumn needs every row in memory, so widths are fixed instead
+            for (int i = 0; i < COLUMN_WIDTHS.length; i++) {
+                sheet.setColumnWidth(i, COLUMN_WIDTHS[i] * 256);
+            }
+            int rowIndex = 0;
+            Row header = sheet.createRow(rowIndex++);
+            for (int i = 0; i < HEADERS.length; i++) {
+                header.createCell(i).setCellValue(HEADERS[i]);
+            }
+
+            String after = null;
+            while (true) {
+                List<Material> page = nextPage(after);
+                for (Material material : page) {
+                    Row row = sheet.createRow(rowIndex++);
+                    row.createCell(0).setCellValue(valueOrEmpty(material.getName()));
+                    row.createCell(1).setCellValue(valueOrEmpty(material.getPartNo()));
+                    row.createCell(2).setCellValue(valueOrEmpty(material.getLineType()));
+                    row.createCell(3).setCellValue(valueOrEmpty(material.getUnit()));
+                    row.createCell(4).setCellValue(valueOrEmpty(material.getCategory()));
+                    row.createCell(5).setCellValue(valueOrEmpty(material.getCode()));
+                }
+                progress.accept(rowIndex - 1);
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                after = page.get(page.size() - 1).getCode();
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private List<Material> nextPage(String after) {
+        Specification<Material> spec = after == null
+            ? Specification.where(null)
+            : (root, query, cb) -> cb.greaterThan(root.get("code"), after);
+        return readOnlyTx.execute(status ->
+            materialRepository.findBy(spec, query -> query.sortBy(Sort.by("code").ascending()).limit(PAGE_SIZE).all())
+        );
+    }
+
+    private static String valueOrEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
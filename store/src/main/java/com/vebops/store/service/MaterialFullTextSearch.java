@@ -0,0 +1,171 @@
+package com.vebops.store.service;
+
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.model.Material;
+import com.vebops.store.repository.MaterialRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Relevance-ranked search over material name, part number and category. On MySQL it runs MATCH ...
+ * AGAINST on a FULLTEXT index that is created at startup when missing; other databases (H2 in tests)
+ * score words in memory with the same natural-language and boolean semantics, close enough for the
+ * ranking order rather than the exact MySQL scores. Boolean queries are rebuilt from the words and the
+ * {@code +}, {@code -} and trailing {@code *} operators both paths understand, so stray syntax such as
+ * quotes or {@code @} never reaches MySQL's parser.
+ */
+@Component
+public class MaterialFullTextSearch implements SmartInitializingSingleton {
+
+    public enum Mode {
+        NATURAL,
+        BOOLEAN
+    }
+
+    public record Hit(Long id, double score) {}
+
+    public record Result(List<Hit> hits, long total) {}
+
+    private static final Logger log = LoggerFactory.getLogger(MaterialFullTextSearch.class);
+
+    private static final String INDEX_NAME = "ft_materials_text";
+    private static final String MATCH = "match(name, part_no, category) against (? in %s mode)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MaterialRepository materialRepository;
+    private volatile boolean fullText;
+
+    // Depends on the entity manager factory so the schema update has created the materials table
+    public MaterialFullTextSearch(
+        JdbcTemplate jdbcTemplate,
+        MaterialRepository materialRepository,
+        EntityManagerFactory entityManagerFactory
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.materialRepository = materialRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String product = jdbcTemplate.execute(
+            (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()
+        );
+        if (product == null || !product.toLowerCase(Locale.ROOT).contains("mysql")) {
+            return;
+        }
+        Integer existing = jdbcTemplate.queryForObject(
+            "select count(*) from information_schema.statistics where table_schema = database() and table_name = 'materials' and index_name = ?",
+            Integer.class,
+            INDEX_NAME
+        );
+        if (existing == null || existing == 0) {
+            jdbcTemplate.execute("alter table materials add fulltext index " + INDEX_NAME + " (name, part_no, category)");
+            log.info("Created FULLTEXT index {} on materials", INDEX_NAME);
+        }
+        fullText = true;
+    }
+
+    public Result search(String query, Mode mode, int offset, int limit) {
+        return fullText ? searchFullText(query, mode, offset, limit) : searchInMemory(query, mode, offset, limit);
+    }
+
+    private Result searchFullText(String query, Mode mode, int offset, int limit) {
+        String against = mode == Mode.BOOLEAN ? booleanQuery(query) : query;
+        if (against.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+        String match = MATCH.formatted(mode == Mode.BOOLEAN ? "boolean" : "natural language");
+        try {
+            Long total = jdbcTemplate.queryForObject("select count(*) from materials where " + match, Long.class, against);
+            List<Hit> hits = jdbcTemplate.query(
+                "select id, " + match + " as score from materials where " + match + " order by score desc, code limit ? offset ?",
+                (rs, rowNum) -> new Hit(rs.getLong("id"), rs.getDouble("score")),
+                against,
+                against,
+                limit,
+                offset
+            );
+            return new Result(hits, total != null ? total : 0);
+        } catch (BadSqlGrammarException ex) {
+            throw new BadRequestException("Search text is not a valid query");
+        }
+    }
+
+    /** The boolean query MySQL receives: one operator, word and optional wildcard per term. */
+    static String booleanQuery(String query) {
+        return parse(query, Mode.BOOLEAN)
+            .stream()
+            .map(term -> (term.required() ? "+" : term.excluded() ? "-" : "") + term.word() + (term.prefix() ? "*" : ""))
+            .collect(Collectors.joining(" "));
+    }
+
+    private Result searchInMemory(String query, Mode mode, int offset, int limit) {
+        List<Term> terms = parse(query, mode);
+        if (terms.stream().noneMatch(term -> !term.excluded())) {
+            return new Result(List.of(), 0);
+        }
+        List<Ranked> ranked = new ArrayList<>();
+        for (Material material : materialRepository.findAll()) {
+            Set<String> words = Stream.of(material.getName(), material.getPartNo(), material.getCategory())
+                .flatMap(MaterialFullTextSearch::words)
+                .collect(Collectors.toSet());
+            double score = 0;
+            boolean rejected = false;
+            for (Term term : terms) {
+                boolean found = words.stream().anyMatch(term::matches);
+                if (term.excluded() ? found : term.required() && !found) {
+                    rejected = true;
+                    break;
+                }
+                if (found) {
+                    score++;
+                }
+            }
+            if (!rejected && score > 0) {
+                ranked.add(new Ranked(new Hit(material.getId(), score), material.getCode()));
+            }
+        }
+        ranked.sort(Comparator.comparingDouble((Ranked entry) -> entry.hit().score()).reversed().thenComparing(Ranked::code));
+        List<Hit> page = ranked.stream().skip(offset).limit(limit).map(Ranked::hit).toList();
+        return new Result(page, ranked.size());
+    }
+
+    private record Ranked(Hit hit, String code) {}
+
+    private record Term(String word, boolean required, boolean excluded, boolean prefix) {
+        boolean matches(String candidate) {
+            return prefix ? candidate.startsWith(word) : candidate.equals(word);
+        }
+    }
+
+    private static List<Term> parse(String query, Mode mode) {
+        List<Term> terms = new ArrayList<>();
+        for (String token : query.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            boolean required = mode == Mode.BOOLEAN && token.startsWith("+");
+            boolean excluded = mode == Mode.BOOLEAN && token.startsWith("-");
+            boolean prefix = mode == Mode.BOOLEAN && token.endsWith("*");
+            words(token).forEach(word -> terms.add(new Term(word, required, excluded, prefix)));
+        }
+        return terms;
+    }
+
+    private static Stream<String> words(String value) {
+        if (value == null) {
+            return Stream.empty();
+        }
+        return Stream.of(value.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")).filter(word -> !word.isEmpty());
+    }
+}
@@ -0,0 +1,410 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.MaterialImportError;
+import com.vebops.store.dto.MaterialImportResult;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.model.Material;
+import com.vebops.store.repository.MaterialRepository;
+import jakarta.persistence.EntityManager;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+/**
+ * Streams a material sheet into the catalog. XLSX uploads are read with the XSSF SAX reader so only
+ * the current row is held in memory; legacy XLS files still go through the workbook API. Existing
+ * codes are loaded once up front, and rows are written in chunks, each in its own transaction with
+ * batched inserts. When a chunk fails, its rows are retried one by one so that only the bad rows
+ * land in the error report. Background jobs pass a {@link Progress} that is called inside each
+ * chunk's transaction, so a checkpoint is stored exactly when the rows before it are.
+ */
+@Component
+public class MaterialImporter {
+
+    private static final int COLUMNS = 6;
+    private static final int MAX_LENGTH = 255;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final MaterialRepository materialRepository;
+    private final ChangeLogService changeLogService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate chunkTx;
+    private final int chunkSize;
+
+    public MaterialImporter(
+        MaterialRepository materialRepository,
+        ChangeLogService changeLogService,
+        EntityManager entityManager,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.materials.import.chunk-size:500}") int chunkSize
+    ) {
+        this.materialRepository = materialRepository;
+        this.changeLogService = changeLogService;
+        this.entityManager = entityManager;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /** Called inside the transaction of every committed chunk with the totals so far. */
+    public interface Progress {
+        Progress NONE = (lastRow, totals) -> {};
+
+        void committed(int lastRow, MaterialImportResult totals);
+    }
+
+    public static final MaterialImportResult NOTHING_IMPORTED = new MaterialImportResult(0, 0, 0, List.of());
+
+    public MaterialImportResult importFile(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("An Excel file is required");
+        }
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("materials-import-", ".tmp");
+            file.transferTo(temp);
+            return importFile(temp, 0, NOTHING_IMPORTED, Progress.NONE);
+        } catch (IOException ex) {
+            throw new BadRequestException("Unable to read the uploaded file");
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // the temp directory is cleaned up by the OS
+                }
+            }
+        }
+    }
+
+    /**
+     * Imports a stored sheet, skipping rows up to {@code resumeAfterRow} (1-based, as shown in Excel)
+     * and continuing the totals of an earlier, interrupted run.
+     */
+    public MaterialImportResult importFile(Path file, int resumeAfterRow, MaterialImportResult resumeFrom, Progress progress) {
+        try {
+            Run run = new Run(resumeAfterRow, resumeFrom, progress);
+            if (FileMagic.valueOf(file.toFile()) == FileMagic.OOXML) {
+                readXlsx(file.toFile(), run);
+            } else {
+                readWorkbook(file.toFile(), run);
+            }
+            run.flush();
+            if (run.created + run.updated == 0 && run.failed == 0) {
+                throw new BadRequestException("No valid materials were found in the file");
+            }
+            return run.totals();
+        } catch (BadRequestException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            throw new BadRequestException("Unable to read the uploaded file");
+        } catch (Exception ex) {
+            throw new BadRequestException("Failed to import materials: " + ex.getMessage());
+        }
+    }
+
+    private void readXlsx(File file, Run run) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new BadRequestException("The uploaded file does not contain any sheets");
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, new SheetRows(run), new DataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        }
+    }
+
+    private void readWorkbook(File file, Run run) throws IOException {
+        try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
+            if (workbook.getNumberOfSheets() == 0) {
+                throw new BadRequestException("The uploaded file does not contain any sheets");
+            }
+            Sheet sheet = workbook.getSheetAt(0);
+            DataFormatter formatter = new DataFormatter();
+            for (Row row : sheet) {
+                String[] cells = new String[COLUMNS];
+                for (int i = 0; i < COLUMNS; i++) {
+                    cells[i] = formatter.formatCellValue(row.getCell(i));
+                }
+                run.row(row.getRowNum(), cells);
+            }
+        }
+    }
+
+    /** Collects the first six cells of each row from the SAX events. */
+    private static final class SheetRows implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final Run run;
+        private String[] cells;
+        private int nextColumn;
+
+        SheetRows(Run run) {
+            this.run = run;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells = new String[COLUMNS];
+            nextColumn = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            run.row(rowNum, cells);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            nextColumn = column + 1;
+            if (column < COLUMNS) {
+                cells[column] = formattedValue;
+            }
+        }
+    }
+
+    private record ImportRow(int number, String name, String partNo, String lineType, String unit, String category, String code) {}
+
+    /** State of one import: the code lookup, the pending chunk and the running totals. */
+    private final class Run {
+
+        private final Map<String, Long> idsByCode = new HashMap<>();
+        private final Set<String> usedCodes = new HashSet<>();
+        private final List<ImportRow> pending = new ArrayList<>();
+        private final List<MaterialImportError> errors = new ArrayList<>();
+        private final int resumeAfterRow;
+        private final Progress progress;
+        private int lastRow;
+        private int created;
+        private int updated;
+        private int failed;
+
+        Run(int resumeAfterRow, MaterialImportResult resumeFrom, Progress progress) {
+            this.resumeAfterRow = resumeAfterRow;
+            this.progress = progress;
+            this.lastRow = resumeAfterRow;
+            this.created = resumeFrom.created();
+            this.updated = resumeFrom.updated();
+            this.failed = resumeFrom.failed();
+            this.errors.addAll(resumeFrom.errors());
+            for (Object[] row : materialRepository.findAllIdsAndCodes()) {
+                String code = ((String) row[1]).toLowerCase(Locale.ROOT);
+                idsByCode.put(code, (Long) row[0]);
+                usedCodes.add(code);
+            }
+        }
+
+        void row(int rowNum, String[] cells) {
+            if (rowNum + 1 <= resumeAfterRow) {
+                return;
+            }
+            lastRow = rowNum + 1;
+            if (rowNum == 0) {
+                return; // skip header
+            }
+            String name = normalize(cells[0]);
+            if (!StringUtils.hasText(name)) {
+                return;
+            }
+            ImportRow row = new ImportRow(
+                rowNum + 1,
+                name,
+                normalize(cells[1]),
+                normalize(cells[2]),
+                normalize(cells[3]),
+                normalize(cells[4]),
+                normalize(cells[5])
+            );
+            String problem = validate(row);
+            if (problem != null) {
+                fail(row, problem);
+                return;
+            }
+            pending.add(row);
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<ImportRow> chunk = List.copyOf(pending);
+            pending.clear();
+            try {
+                commit(chunk, lastRow);
+            } catch (RuntimeException ex) {
+                for (ImportRow row : chunk) {
+                    try {
+                        commit(List.of(row), row.number());
+                    } catch (RuntimeException rowEx) {
+                        Throwable cause = NestedExceptionUtils.getMostSpecificCause(rowEx);
+                        fail(row, cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+                    }
+                }
+            }
+        }
+
+        private void commit(List<ImportRow> rows, int checkpointRow) {
+            Written written = chunkTx.execute(status -> {
+                Written result = write(rows);
+                progress.committed(
+                    checkpointRow,
+                    new MaterialImportResult(created + result.created(), updated + result.updated(), failed, List.copyOf(errors))
+                );
+                return result;
+            });
+            idsByCode.putAll(written.idsByCode());
+            created += written.created();
+            updated += written.updated();
+        }
+
+        MaterialImportResult totals() {
+            return new MaterialImportResult(created, updated, failed, List.copyOf(errors));
+        }
+
+        private Written write(List<ImportRow> rows) {
+            Set<Long> existingIds = new HashSet<>();
+            for (ImportRow row : rows) {
+                if (row.code() != null) {
+                    Long id = idsByCode.get(row.code().toLowerCase(Locale.ROOT));
+                    if (id != null) {
+                        existingIds.add(id);
+                    }
+                }
+            }
+            Map<Long, Material> existing = materialRepository
+                .findAllById(existingIds)
+                .stream()
+                .collect(Collectors.toMap(Material::getId, Function.identity()));
+
+            Map<String, Material> byCode = new LinkedHashMap<>();
+            int rowsCreated = 0;
+            int rowsUpdated = 0;
+            for (ImportRow row : rows) {
+                Material material = null;
+                if (row.code() != null) {
+                    String key = row.code().toLowerCase(Locale.ROOT);
+                    material = byCode.get(key);
+                    if (material == null && idsByCode.containsKey(key)) {
+                        material = existing.get(idsByCode.get(key));
+                    }
+                }
+                if (material == null) {
+                    material = new Material();
+                    material.setCode(row.code() != null ? row.code() : generateUniqueCode());
+                    usedCodes.add(material.getCode().toLowerCase(Locale.ROOT));
+                    rowsCreated++;
+                } else {
+                    rowsUpdated++;
+                }
+                material.setName(row.name());
+                material.setPartNo(row.partNo());
+                material.setLineType(row.lineType());
+                material.setUnit(row.unit());
+                material.setCategory(row.category());
+                material.syncBalance();
+                byCode.put(material.getCode().toLowerCase(Locale.ROOT), material);
+            }
+            List<Material> saved = materialRepository.saveAll(byCode.values());
+            materialRepository.flush();
+            changeLogService.recordMaterialUpserts(saved.stream().map(Material::getId).toList());
+
+            Map<String, Long> ids = new HashMap<>();
+            saved.forEach(material -> ids.put(material.getCode().toLowerCase(Locale.ROOT), material.getId()));
+            // A request-scoped persistence context would otherwise keep every imported row managed
+            entityManager.clear();
+            return new Written(ids, rowsCreated, rowsUpdated);
+        }
+
+        private String generateUniqueCode() {
+            String code;
+            do {
+                code = "MAT-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            } while (usedCodes.contains(code.toLowerCase(Locale.ROOT)));
+            return code;
+        }
+
+        private void fail(ImportRow row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new MaterialImportError(row.number(), message));
+            }
+        }
+    }
+
+    private record Written(Map<String, Long> idsByCode, int created, int updated) {}
+
+    private static String validate(ImportRow row) {
+        if (row.name().length() > MAX_LENGTH) {
+            return "Name is longer than " + MAX_LENGTH + " characters";
+        }
+        if (row.partNo() != null && row.partNo().length() > MAX_LENGTH) {
+            return "Part No is longer than " + MAX_LENGTH + " characters";
+        }
+        if (row.lineType() != null && row.lineType().length() > MAX_LENGTH) {
+            return "Line Type is longer than " + MAX_LENGTH + " characters";
+        }
+        if (row.unit() != null && row.unit().length() > MAX_LENGTH) {
+            return "Unit is longer than " + MAX_LENGTH + " characters";
+        }
+        if (row.category() != null && row.category().length() > MAX_LENGTH) {
+            return "Category is longer than " + MAX_LENGTH + " characters";
+        }
+        if (row.code() != null && row.code().length() > MAX_LENGTH) {
+            return "Code is longer than " + MAX_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
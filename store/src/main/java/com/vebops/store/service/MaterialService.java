@@ -1,44 +1,54 @@
 package com.vebops.store.service;
 
 import com.vebops.store.dto.MaterialDto;
+import com.vebops.store.dto.MaterialImportResult;
 import com.vebops.store.dto.MaterialRequest;
+import com.vebops.store.dto.MaterialSearchHit;
 import com.vebops.store.dto.PaginatedResponse;
 import com.vebops.store.exception.BadRequestException;
 import com.vebops.store.exception.NotFoundException;
+import com.vebops.store.model.ChangeEntityType;
 import com.vebops.store.model.Material;
 import com.vebops.store.repository.MaterialRepository;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
+import java.io.OutputStream;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
-import jakarta.persistence.criteria.Predicate;
-import org.apache.poi.ss.usermodel.DataFormatter;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
-import java.io.ByteArrayOutputStream;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 
 @Service
 public class MaterialService {
 
     private final MaterialRepository materialRepository;
+    private final ChangeLogService changeLogService;
+    private final MaterialCatalogIndex catalogIndex;
+    private final MaterialFullTextSearch fullTextSearch;
+    private final MaterialImporter materialImporter;
+    private final MaterialExporter materialExporter;
 
-    public MaterialService(MaterialRepository materialRepository) {
+    public MaterialService(
+        MaterialRepository materialRepository,
+        ChangeLogService changeLogService,
+        MaterialCatalogIndex catalogIndex,
+        MaterialFullTextSearch fullTextSearch,
+        MaterialImporter materialImporter,
+        MaterialExporter materialExporter
+    ) {
         this.materialRepository = materialRepository;
+        this.changeLogService = changeLogService;
+        this.catalogIndex = catalogIndex;
+        this.fullTextSearch = fullTextSearch;
+        this.materialImporter = materialImporter;
+        this.materialExporter = materialExporter;
     }
 
     public List<MaterialDto> list() {
@@ -51,61 +61,121 @@ public class MaterialService {
         List<String> units,
         List<String> lineTypes,
         int page,
-        int size
+        int size,
+        String after,
+        boolean includeTotal
     ) {
-        int safePage = normalizePage(page);
         int safeSize = normalizeSize(size);
-        Specification<Material> spec = Specification.where(null);
-        if (StringUtils.hasText(search)) {
-            String query = "%" + search.trim().toLowerCase() + "%";
-            spec = spec.and((root, q, cb) -> {
-                Predicate codePredicate = cb.like(cb.lower(root.get("code")), query);
-                Predicate namePredicate = cb.like(cb.lower(root.get("name")), query);
-                Predicate partPredicate = cb.like(cb.lower(root.get("partNo")), query);
-                return cb.or(codePredicate, namePredicate, partPredicate);
-            });
-        }
-        if (categories != null && !categories.isEmpty()) {
-            List<String> normalized = categories.stream().filter(StringUtils::hasText).map(String::trim).toList();
-            if (!normalized.isEmpty()) {
-                spec = spec.and((root, q, cb) -> root.get("category").in(normalized));
-            }
-        }
-        if (units != null && !units.isEmpty()) {
-            List<String> normalized = units.stream().filter(StringUtils::hasText).map(String::trim).toList();
-            if (!normalized.isEmpty()) {
-                spec = spec.and((root, q, cb) -> root.get("unit").in(normalized));
-            }
-        }
-        if (lineTypes != null && !lineTypes.isEmpty()) {
-            List<String> normalized = lineTypes.stream().filter(StringUtils::hasText).map(String::trim).toList();
-            if (!normalized.isEmpty()) {
-                spec = spec.and((root, q, cb) -> root.get("lineType").in(normalized));
-            }
+        if (StringUtils.hasText(after)) {
+            String[] key = PageCursor.decode(after, 2);
+            MaterialCatalogIndex.Page result = catalogIndex.seek(
+                search,
+                categories,
+                units,
+                lineTypes,
+                key[0],
+                PageCursor.longKey(key[1]),
+                safeSize + 1,
+                includeTotal
+            );
+            boolean hasNext = result.ids().size() > safeSize;
+            List<MaterialDto> items = load(hasNext ? result.ids().subList(0, safeSize) : result.ids());
+            return PaginatedResponse.afterCursor(
+                items,
+                includeTotal ? result.total() : null,
+                safeSize,
+                hasNext,
+                result.hasPrevious(),
+                result.filters(),
+                result.facetCounts(),
+                hasNext ? nextCursor(items) : null
+            );
         }
-        Pageable pageable = PageRequest.of(safePage - 1, safeSize, Sort.by("code").ascending());
-        Page<Material> result = materialRepository.findAll(spec, pageable);
-        List<MaterialDto> items = result.stream().map(this::toDto).toList();
-        Map<String, List<String>> filters = Map.of(
-            "categories",
-            normalizeFilter(materialRepository.distinctCategories()),
-            "units",
-            normalizeFilter(materialRepository.distinctUnits()),
-            "lineTypes",
-            normalizeFilter(materialRepository.distinctLineTypes())
+        int safePage = normalizePage(page);
+        MaterialCatalogIndex.Page result = catalogIndex.search(
+            search,
+            categories,
+            units,
+            lineTypes,
+            (safePage - 1) * safeSize,
+            safeSize
+        );
+        List<MaterialDto> items = load(result.ids());
+        int totalPages = (int) ((result.total() + safeSize - 1) / safeSize);
+        boolean hasNext = safePage < totalPages;
+        return new PaginatedResponse<>(
+            items,
+            result.total(),
+            safePage,
+            safeSize,
+            totalPages,
+            hasNext,
+            safePage > 1,
+            result.filters(),
+            result.facetCounts(),
+            hasNext ? nextCursor(items) : null
         );
+    }
+
+    public PaginatedResponse<MaterialSearchHit> fullTextSearch(String search, String mode, int page, int size) {
+        if (!StringUtils.hasText(search)) {
+            throw new BadRequestException("Search text is required");
+        }
+        MaterialFullTextSearch.Mode searchMode = parseMode(mode);
+        int safePage = normalizePage(page);
+        int safeSize = normalizeSize(size);
+        MaterialFullTextSearch.Result result = fullTextSearch.search(search.trim(), searchMode, (safePage - 1) * safeSize, safeSize);
+        Map<Long, MaterialDto> loaded = load(result.hits().stream().map(MaterialFullTextSearch.Hit::id).toList())
+            .stream()
+            .collect(Collectors.toMap(material -> Long.valueOf(material.id()), Function.identity()));
+        List<MaterialSearchHit> items = result
+            .hits()
+            .stream()
+            .filter(hit -> loaded.containsKey(hit.id()))
+            .map(hit -> new MaterialSearchHit(loaded.get(hit.id()), hit.score()))
+            .toList();
+        int totalPages = (int) ((result.total() + safeSize - 1) / safeSize);
         return new PaginatedResponse<>(
             items,
-            result.getTotalElements(),
+            result.total(),
             safePage,
             safeSize,
-            result.getTotalPages(),
-            result.hasNext(),
-            result.hasPrevious(),
-            filters
+            totalPages,
+            safePage < totalPages,
+            safePage > 1,
+            Map.of()
         );
     }
 
+    private MaterialFullTextSearch.Mode parseMode(String mode) {
+        if (!StringUtils.hasText(mode)) {
+            return MaterialFullTextSearch.Mode.NATURAL;
+        }
+        try {
+            return MaterialFullTextSearch.Mode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Unsupported search mode: " + mode);
+        }
+    }
+
+    /** The index only ranks; quantities change with every stock movement, so they are read fresh. */
+    private List<MaterialDto> load(List<Long> ids) {
+        Map<Long, Material> loaded = materialRepository
+            .findAllById(ids)
+            .stream()
+            .collect(Collectors.toMap(Material::getId, Function.identity()));
+        return ids.stream().map(loaded::get).filter(Objects::nonNull).map(this::toDto).toList();
+    }
+
+    private String nextCursor(List<MaterialDto> items) {
+        if (items.isEmpty()) {
+            return null;
+        }
+        MaterialDto last = items.get(items.size() - 1);
+        return PageCursor.encode(last.code(), last.id());
+    }
+
+    @Transactional
     public MaterialDto create(MaterialRequest request) {
         validate(request);
         materialRepository
@@ -117,76 +187,37 @@ public class MaterialService {
         material.setCode(generateUniqueCode());
         apply(material, request);
         material.syncBalance();
-        return toDto(materialRepository.save(material));
+        Material saved = materialRepository.save(material);
+        changeLogService.recordUpsert(ChangeEntityType.MATERIAL, saved.getId(), null);
+        catalogIndex.invalidate();
+        return toDto(saved);
     }
 
+    @Transactional
     public MaterialDto update(Long id, MaterialRequest request) {
         validate(request);
         Material material = materialRepository.findById(id).orElseThrow(() -> new NotFoundException("Material not found"));
         apply(material, request);
         material.syncBalance();
-        return toDto(materialRepository.save(material));
+        Material saved = materialRepository.save(material);
+        changeLogService.recordUpsert(ChangeEntityType.MATERIAL, saved.getId(), null);
+        catalogIndex.invalidate();
+        return toDto(saved);
     }
 
+    @Transactional
     public void delete(Long id) {
         materialRepository.deleteById(id);
+        changeLogService.recordDelete(ChangeEntityType.MATERIAL, id, null);
+        catalogIndex.invalidate();
     }
 
-    public List<MaterialDto> importMaterials(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            throw new BadRequestException("An Excel file is required");
-        }
-        try (InputStream inputStream = file.getInputStream(); Workbook workbook = WorkbookFactory.create(inputStream)) {
-            if (workbook.getNumberOfSheets() == 0) {
-                throw new BadRequestException("The uploaded file does not contain any sheets");
-            }
-            Sheet sheet = workbook.getSheetAt(0);
-            if (sheet == null) {
-                throw new BadRequestException("The uploaded sheet is empty");
-            }
-            DataFormatter formatter = new DataFormatter();
-            List<MaterialDto> imported = new ArrayList<>();
-            for (Row row : sheet) {
-                if (row == null || row.getRowNum() == 0) {
-                    continue; // skip header
-                }
-                String name = normalize(formatter.formatCellValue(row.getCell(0)));
-                if (!StringUtils.hasText(name)) {
-                    continue;
-                }
-                String partNo = normalize(formatter.formatCellValue(row.getCell(1)));
-                String lineType = normalize(formatter.formatCellValue(row.getCell(2)));
-                String unit = normalize(formatter.formatCellValue(row.getCell(3)));
-                String category = normalize(formatter.formatCellValue(row.getCell(4)));
-                String code = normalize(formatter.formatCellValue(row.getCell(5)));
-                Material material;
-
-                if (StringUtils.hasText(code)) {
-                    // Update existing or create new with the given code
-                    material = materialRepository.findByCodeIgnoreCase(code).orElseGet(Material::new);
-                } else {
-                    // Completely new material – generate a code
-                    material = new Material();
-                    material.setCode(generateUniqueCode());
-                }
-                material.setName(name);
-                material.setPartNo(partNo);
-                material.setLineType(lineType);
-                material.setUnit(unit);
-                material.setCategory(category);
-                material.syncBalance();
-
-                Material saved = materialRepository.save(material);
-                imported.add(toDto(saved));
-            }
-            if (imported.isEmpty()) {
-                throw new BadRequestException("No valid materials were found in the file");
-            }
-            return imported;
-        } catch (IOException ex) {
-            throw new BadRequestException("Unable to read the uploaded file");
-        } catch (Exception ex) {
-            throw new BadRequestException("Failed to import materials: " + ex.getMessage());
+    public MaterialImportResult importMaterials(MultipartFile file) {
+        try {
+            return materialImporter.importFile(file);
+        } finally {
+            // Chunks commit on their own, so even a failed import may have changed the catalog
+            catalogIndex.invalidate();
         }
     }
 
@@ -204,10 +235,6 @@ public class MaterialService {
         }
     }
 
-    private String normalize(String value) {
-        return value == null ? null : value.trim();
-    }
-
     private MaterialDto toDto(Material material) {
         return new MaterialDto(
             String.valueOf(material.getId()),
@@ -225,13 +252,6 @@ public class MaterialService {
         );
     }
 
-    private List<String> normalizeFilter(List<String> values) {
-        if (values == null) {
-            return List.of();
-        }
-        return values.stream().filter(StringUtils::hasText).map(String::trim).sorted().toList();
-    }
-
     private int normalizePage(int page) {
         return page <= 0 ? 1 : page;
     }
@@ -251,47 +271,7 @@ public class MaterialService {
         return code;
     }
 
-        public byte[] exportMaterials() {
-        // Reuse existing list method to keep sorting and DTO mapping consistent
-        List<MaterialDto> materials = list();
-
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Materials");
-
-            int rowIndex = 0;
-
-            // Header row – aligned with your import format
-            Row header = sheet.createRow(rowIndex++);
-            header.createCell(0).setCellValue("Name");
-            header.createCell(1).setCellValue("Part No");
-            header.createCell(2).setCellValue("Line Type");
-            header.createCell(3).setCellValue("Unit");
-            header.createCell(4).setCellValue("Category");
-            header.createCell(5).setCellValue("Code");
-
-            // Data rows
-            for (MaterialDto material : materials) {
-                Row row = sheet.createRow(rowIndex++);
-                row.createCell(0).setCellValue(material.name() != null ? material.name() : "");
-                row.createCell(1).setCellValue(material.partNo() != null ? material.partNo() : "");
-                row.createCell(2).setCellValue(material.lineType() != null ? material.lineType() : "");
-                row.createCell(3).setCellValue(material.unit() != null ? material.unit() : "");
-                row.createCell(4).setCellValue(material.category() != null ? material.category() : "");
-                row.createCell(5).setCellValue(material.code() != null ? material.code() : "");
-            }
-
-            // Auto-size columns for nicer file
-            for (int i = 0; i <= 5; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
-        } catch (IOException ex) {
-            throw new BadRequestException("Failed to generate materials Excel file");
-        }
+    public void exportMaterials(OutputStream out) throws IOException {
+        materialExporter.write(out);
     }
-
-
 }
@@ -0,0 +1,43 @@
+package com.vebops.store.service;
+
+import com.vebops.store.exception.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the sort key of the last row on a page, URL-safe encoded. Callers pass it
+ * back as {@code after} and the next page seeks past that key instead of counting an offset.
+ */
+public final class PageCursor {
+
+    private static final String SEPARATOR = "\u0000";
+
+    private PageCursor() {}
+
+    public static String encode(String... keys) {
+        String joined = String.join(SEPARATOR, keys);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decode(String cursor, int keyCount) {
+        try {
+            String joined = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            String[] keys = joined.split(SEPARATOR, -1);
+            if (keys.length == keyCount) {
+                return keys;
+            }
+        } catch (IllegalArgumentException ignored) {
+            // fall through to the error below
+        }
+        throw new BadRequestException("Invalid page cursor");
+    }
+
+    /** Parses a numeric key of a decoded cursor, such as the id that breaks ties between equal codes. */
+    public static long longKey(String key) {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Invalid page cursor");
+        }
+    }
+}
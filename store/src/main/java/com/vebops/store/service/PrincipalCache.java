@@ -0,0 +1,148 @@
+package com.vebops.store.service;
+
+import com.vebops.store.model.UserAccount;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Authenticated users by id, so a request resolves its caller without a users and user_projects
+ * round trip. Each entry is a detached snapshot loaded with its projects in one query through a
+ * private entity manager; it never joins a request's persistence context, so an admin editing their
+ * own account cannot change the cached copy before commit. Entries expire after a short TTL and are
+ * evicted after an admin change commits; a snapshot loaded while an eviction happened is returned but
+ * not stored, so permissions read before the change are never cached past it. Evictions only reach
+ * this node, so the cache also re-reads the newest USER and PROJECT change log versions at most every
+ * {@code app.auth.principal-cache.freshness-check-ms} and drops every entry when they moved; a change
+ * made on another node is therefore served stale for at most that interval.
+ */
+@Component
+public class PrincipalCache {
+
+    private record Entry(UserAccount user, long expiresAt) {}
+
+    // Versions come from one global counter, so any new USER or PROJECT entry raises the larger of the two
+    private static final String VERSION_SQL =
+        "select (select coalesce(max(version), 0) from change_log where entity_type = 'USER'), " +
+        "(select coalesce(max(version), 0) from change_log where entity_type = 'PROJECT')";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final RuntimeMetrics metrics;
+    private final long ttlNanos;
+    private final long freshnessCheckNanos;
+    private final Map<Long, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong lastFreshnessCheck = new AtomicLong(System.nanoTime());
+    private long knownVersion = -1;
+
+    public PrincipalCache(
+        EntityManagerFactory entityManagerFactory,
+        JdbcTemplate jdbcTemplate,
+        RuntimeMetrics metrics,
+        @Value("${app.auth.principal-cache.ttl-seconds:60}") long ttlSeconds,
+        @Value("${app.auth.principal-cache.max-entries:1000}") int maxEntries,
+        @Value("${app.auth.principal-cache.freshness-check-ms:1000}") long freshnessCheckMs
+    ) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.ttlNanos = Math.max(0, ttlSeconds) * 1_000_000_000L;
+        this.freshnessCheckNanos = TimeUnit.MILLISECONDS.toNanos(freshnessCheckMs);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Returns the user, or null when no such user exists. */
+    public UserAccount get(Long userId) {
+        long now = System.nanoTime();
+        checkFreshness(now);
+        synchronized (entries) {
+            Entry cached = entries.get(userId);
+            if (cached != null && cached.expiresAt() - now > 0) {
+                metrics.increment("auth.principal.hit");
+                return cached.user();
+            }
+        }
+        metrics.increment("auth.principal.miss");
+        long startedAt = generation.get();
+        UserAccount user = load(userId);
+        if (user != null && ttlNanos > 0) {
+            synchronized (entries) {
+                if (generation.get() == startedAt) {
+                    entries.put(userId, new Entry(user, now + ttlNanos));
+                }
+            }
+        }
+        return user;
+    }
+
+    public void evict(Long userId) {
+        afterCommit(() -> entries.remove(userId));
+    }
+
+    public void evictAll() {
+        afterCommit(entries::clear);
+    }
+
+    /** Drops every entry once per interval in which another node may have changed users or projects. */
+    private void checkFreshness(long now) {
+        long last = lastFreshnessCheck.get();
+        if (now - last < freshnessCheckNanos || !lastFreshnessCheck.compareAndSet(last, now)) {
+            return;
+        }
+        long latest = jdbcTemplate.query(VERSION_SQL, rs -> rs.next() ? Math.max(rs.getLong(1), rs.getLong(2)) : 0L);
+        synchronized (entries) {
+            if (latest != knownVersion) {
+                knownVersion = latest;
+                generation.incrementAndGet();
+                entries.clear();
+            }
+        }
+    }
+
+    private void afterCommit(Runnable eviction) {
+        Runnable locked = () -> {
+            synchronized (entries) {
+                generation.incrementAndGet();
+                eviction.run();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    locked.run();
+                }
+            });
+        } else {
+            locked.run();
+        }
+    }
+
+    private UserAccount load(Long userId) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            List<UserAccount> found = entityManager
+                .createQuery("select u from UserAccount u left join fetch u.projects where u.id = :id", UserAccount.class)
+                .setParameter("id", userId)
+                .getResultList();
+            return found.isEmpty() ? null : found.get(0);
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.vebops.store.exception.BadRequestException;
 import com.vebops.store.exception.NotFoundException;
 import com.vebops.store.exception.UnauthorizedException;
 import com.vebops.store.model.AccessType;
+import com.vebops.store.model.ChangeEntityType;
 import com.vebops.store.model.Material;
 import com.vebops.store.model.ProcurementRequest;
 import com.vebops.store.model.ProcurementRequestStatus;
@@ -17,6 +18,7 @@ import com.vebops.store.repository.ProcurementRequestRepository;
 import com.vebops.store.repository.ProjectRepository;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +31,7 @@ public class ProcurementService {
     private final MaterialRepository materialRepository;
     private final ProcurementRequestRepository procurementRequestRepository;
     private final BomService bomService;
+    private final ChangeLogService changeLogService;
 
     private static final DateTimeFormatter DATE_TIME_FMT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
@@ -36,12 +39,14 @@ public class ProcurementService {
         ProjectRepository projectRepository,
         MaterialRepository materialRepository,
         ProcurementRequestRepository procurementRequestRepository,
-        BomService bomService
+        BomService bomService,
+        ChangeLogService changeLogService
     ) {
         this.projectRepository = projectRepository;
         this.materialRepository = materialRepository;
         this.procurementRequestRepository = procurementRequestRepository;
         this.bomService = bomService;
+        this.changeLogService = changeLogService;
     }
 
     public List<ProcurementRequestDto> listRequests(UserAccount user) {
@@ -54,6 +59,19 @@ public class ProcurementService {
         return requests.stream().map(this::toDto).toList();
     }
 
+    public List<ProcurementRequestDto> findRequests(UserAccount user, Collection<Long> requestIds) {
+        if (requestIds == null || requestIds.isEmpty()) {
+            return List.of();
+        }
+        boolean reviewer = canReview(user);
+        return procurementRequestRepository
+            .findAllById(requestIds)
+            .stream()
+            .filter(request -> reviewer || (request.getRequestedBy() != null && user.getId().equals(request.getRequestedBy().getId())))
+            .map(this::toDto)
+            .toList();
+    }
+
     @Transactional
     public ProcurementRequestDto createRequest(UserAccount user, CreateProcurementRequest payload) {
         if (payload == null) {
@@ -86,7 +104,9 @@ public class ProcurementService {
         request.setStatus(ProcurementRequestStatus.PENDING);
         request.setCreatedAt(LocalDateTime.now());
 
-        return toDto(procurementRequestRepository.save(request));
+        ProcurementRequest saved = procurementRequestRepository.save(request);
+        changeLogService.recordUpsert(ChangeEntityType.PROCUREMENT, saved.getId(), project.getId());
+        return toDto(saved);
     }
 
     @Transactional
@@ -124,7 +144,9 @@ public class ProcurementService {
         if (StringUtils.hasText(payload.note())) {
             request.setResolutionNote(payload.note().trim());
         }
-        return toDto(procurementRequestRepository.save(request));
+        ProcurementRequest saved = procurementRequestRepository.save(request);
+        changeLogService.recordUpsert(ChangeEntityType.PROCUREMENT, saved.getId(), saved.getProject().getId());
+        return toDto(saved);
     }
 
     private void ensureProjectAccess(UserAccount user, Project project) {
@@ -0,0 +1,88 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.ProjectBalanceDto;
+import com.vebops.store.dto.ProjectBalancesResponse;
+import com.vebops.store.exception.NotFoundException;
+import com.vebops.store.exception.UnauthorizedException;
+import com.vebops.store.model.AccessType;
+import com.vebops.store.model.Material;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.ProjectRepository;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Project balances on a past date, answered from the stock journal: the month-end snapshot on or
+ * before the date plus the movements after it.
+ */
+@Service
+public class ProjectBalanceService {
+
+    private final ProjectRepository projectRepository;
+    private final MaterialRepository materialRepository;
+    private final StockJournalService stockJournal;
+
+    public ProjectBalanceService(
+        ProjectRepository projectRepository,
+        MaterialRepository materialRepository,
+        StockJournalService stockJournal
+    ) {
+        this.projectRepository = projectRepository;
+        this.materialRepository = materialRepository;
+        this.stockJournal = stockJournal;
+    }
+
+    @Transactional(readOnly = true)
+    public ProjectBalancesResponse balancesAsOf(UserAccount user, Long projectId, LocalDate asOf) {
+        if (!projectRepository.existsById(projectId)) {
+            throw new NotFoundException("Project not found");
+        }
+        ensureProjectAccess(user, projectId);
+        LocalDate date = asOf != null ? asOf : LocalDate.now();
+
+        Map<Long, ProjectMaterialTotals> totals = stockJournal.totalsAsOf(projectId, date);
+        Map<Long, Material> materials = materialRepository
+            .findAllById(totals.keySet())
+            .stream()
+            .collect(Collectors.toMap(Material::getId, Function.identity()));
+
+        List<ProjectBalanceDto> balances = totals
+            .entrySet()
+            .stream()
+            .filter(entry -> materials.containsKey(entry.getKey()))
+            .map(entry -> {
+                Material material = materials.get(entry.getKey());
+                ProjectMaterialTotals total = entry.getValue();
+                return new ProjectBalanceDto(
+                    String.valueOf(material.getId()),
+                    material.getCode(),
+                    material.getName(),
+                    material.getUnit(),
+                    total.orderedQty(),
+                    total.receivedQty(),
+                    total.issuedQty(),
+                    total.balanceQty()
+                );
+            })
+            .sorted(Comparator.comparing(ProjectBalanceDto::code, Comparator.nullsLast(Comparator.naturalOrder())))
+            .toList();
+        return new ProjectBalancesResponse(String.valueOf(projectId), date.toString(), balances);
+    }
+
+    private void ensureProjectAccess(UserAccount user, Long projectId) {
+        if (user.getAccessType() == AccessType.ALL) {
+            return;
+        }
+        boolean assigned = user.getProjects().stream().anyMatch(project -> project.getId().equals(projectId));
+        if (!assigned) {
+            throw new UnauthorizedException("You are not assigned to this project");
+        }
+    }
+}
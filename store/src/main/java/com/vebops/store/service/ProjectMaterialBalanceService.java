@@ -0,0 +1,187 @@
+package com.vebops.store.service;
+
+import com.vebops.store.model.Material;
+import com.vebops.store.model.Project;
+import com.vebops.store.model.ProjectMaterialBalance;
+import com.vebops.store.repository.BomLineRepository;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.ProjectMaterialBalanceRepository;
+import com.vebops.store.repository.ProjectRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains the per (project, material) stock ledger. Callers update the rows inside the same
+ * transaction as the movement that changes them; {@link #rebuild()} recomputes the table from the BOM
+ * and movement history while writers keep running. Allocation changes take the same stock lock and row lock as the
+ * inventory writers, so a BOM edit never writes back quantities a concurrent movement has changed.
+ */
+@Service
+public class ProjectMaterialBalanceService {
+
+    private final ProjectMaterialBalanceRepository balanceRepository;
+    private final ProjectRepository projectRepository;
+    private final MaterialRepository materialRepository;
+    private final BomLineRepository bomLineRepository;
+    private final ProjectMaterialTotalsService totalsService;
+    private final StockLockManager stockLocks;
+    private final ChangeLogService changeLogService;
+    private final TransactionTemplate rebuildTx;
+
+    public ProjectMaterialBalanceService(
+        ProjectMaterialBalanceRepository balanceRepository,
+        ProjectRepository projectRepository,
+        MaterialRepository materialRepository,
+        BomLineRepository bomLineRepository,
+        ProjectMaterialTotalsService totalsService,
+        StockLockManager stockLocks,
+        ChangeLogService changeLogService,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.balanceRepository = balanceRepository;
+        this.projectRepository = projectRepository;
+        this.materialRepository = materialRepository;
+        this.bomLineRepository = bomLineRepository;
+        this.totalsService = totalsService;
+        this.stockLocks = stockLocks;
+        this.changeLogService = changeLogService;
+        this.rebuildTx = new TransactionTemplate(transactionManager);
+        this.rebuildTx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    /**
+     * Existing ledger rows of the project for the given materials, keyed by material id. The rows are
+     * read with a row lock, so the values are the latest committed ones whatever the transaction's
+     * snapshot.
+     */
+    public Map<Long, ProjectMaterialBalance> lockForProject(Long projectId, Collection<Long> materialIds) {
+        Map<Long, ProjectMaterialBalance> rows = new HashMap<>();
+        if (materialIds.isEmpty()) {
+            return rows;
+        }
+        balanceRepository
+            .lockByProjectIdAndMaterialIdIn(projectId, materialIds)
+            .forEach(balance -> rows.put(balance.getMaterial().getId(), balance));
+        return rows;
+    }
+
+    public ProjectMaterialBalance create(Project project, Material material) {
+        ProjectMaterialBalance created = new ProjectMaterialBalance();
+        created.setProject(project);
+        created.setMaterial(material);
+        return balanceRepository.save(created);
+    }
+
+    public void recordAllocation(Project project, Material material, double allocatedQty) {
+        lockRow(project, material)
+            .orElseGet(() -> create(project, material))
+            .setAllocatedQty(allocatedQty);
+    }
+
+    public void clearAllocation(Project project, Material material) {
+        lockRow(project, material)
+            .ifPresent(balance -> {
+                if (balance.hasMovements()) {
+                    balance.setAllocatedQty(0d);
+                } else {
+                    balanceRepository.delete(balance);
+                }
+            });
+    }
+
+    /** Locks the pair the way inventory writers do: stock stripe first, then the ledger row. */
+    private Optional<ProjectMaterialBalance> lockRow(Project project, Material material) {
+        stockLocks.lockUntilCompletion(List.of(new ProjectMaterialKey(project.getId(), material.getId())));
+        return balanceRepository.lockByProjectIdAndMaterialIdIn(project.getId(), List.of(material.getId())).stream().findFirst();
+    }
+
+    public boolean isEmpty() {
+        return balanceRepository.count() == 0;
+    }
+
+    /**
+     * Recomputes the ledger from the BOM and movement history one project at a time. Each project
+     * runs in its own transaction that first takes, in the writers' order, the stock stripes, the
+     * material rows and the ledger rows of every material the project has touched, and only then reads
+     * the history, so a movement is either already committed and counted or waits for the rebuild.
+     * Rows are updated in place rather than dropped, and every pair whose figures changed is recorded
+     * in the change log, which also evicts cached bootstrap payloads.
+     */
+    public int rebuild() {
+        int rows = 0;
+        for (Long projectId : projectRepository.findAllIds()) {
+            Integer kept = rebuildTx.execute(status -> rebuildProject(projectId));
+            rows += kept != null ? kept : 0;
+        }
+        return rows;
+    }
+
+    private int rebuildProject(Long projectId) {
+        Set<Long> materialIds = new TreeSet<>(balanceRepository.findMaterialIdsByProjectId(projectId));
+        bomLineRepository.findQuantitiesByProjectId(projectId).forEach(row -> materialIds.add((Long) row[0]));
+        totalsService.totalsFromHistory(projectId).keySet().forEach(key -> materialIds.add(key.materialId()));
+        if (materialIds.isEmpty()) {
+            return 0;
+        }
+
+        List<ProjectMaterialKey> keys = materialIds.stream().map(id -> new ProjectMaterialKey(projectId, id)).toList();
+        stockLocks.lockUntilCompletion(keys);
+        materialRepository.lockAllById(materialIds);
+        Map<Long, ProjectMaterialBalance> locked = lockForProject(projectId, materialIds);
+
+        // Read after the locks: every movement on these pairs has either committed or is waiting on us
+        Map<Long, Double> allocations = new HashMap<>();
+        bomLineRepository.findQuantitiesByProjectId(projectId).forEach(row -> allocations.put((Long) row[0], (Double) row[1]));
+        Map<ProjectMaterialKey, ProjectMaterialTotals> totals = totalsService.totalsFromHistory(projectId);
+
+        Project project = projectRepository.getReferenceById(projectId);
+        List<Material> changed = new ArrayList<>();
+        int kept = 0;
+        for (ProjectMaterialKey key : keys) {
+            ProjectMaterialBalance balance = locked.get(key.materialId());
+            ProjectMaterialTotals figures = totals.getOrDefault(key, ProjectMaterialTotals.EMPTY);
+            Double allocated = allocations.get(key.materialId());
+            boolean empty = allocated == null
+                && figures.orderedQty() == 0d
+                && figures.receivedQty() == 0d
+                && figures.issuedQty() == 0d;
+            if (empty) {
+                if (balance != null) {
+                    balanceRepository.delete(balance);
+                    changed.add(balance.getMaterial());
+                }
+                continue;
+            }
+            kept++;
+            if (balance == null) {
+                balance = create(project, materialRepository.getReferenceById(key.materialId()));
+            } else if (
+                balance.getAllocatedQty() == (allocated != null ? allocated : 0d)
+                && balance.getOrderedQty() == figures.orderedQty()
+                && balance.getReceivedQty() == figures.receivedQty()
+                && balance.getIssuedQty() == figures.issuedQty()
+            ) {
+                continue;
+            }
+            balance.setAllocatedQty(allocated != null ? allocated : 0d);
+            balance.setOrderedQty(figures.orderedQty());
+            balance.setReceivedQty(figures.receivedQty());
+            balance.setIssuedQty(figures.issuedQty());
+            changed.add(balance.getMaterial());
+        }
+        if (!changed.isEmpty()) {
+            changeLogService.recordStockMovement(project, changed);
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,3 @@
+package com.vebops.store.service;
+
+public record ProjectMaterialKey(Long projectId, Long materialId) {}
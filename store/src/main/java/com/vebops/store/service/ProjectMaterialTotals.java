@@ -0,0 +1,18 @@
+package com.vebops.store.service;
+
+public record ProjectMaterialTotals(double orderedQty, double receivedQty, double issuedQty) {
+
+    public static final ProjectMaterialTotals EMPTY = new ProjectMaterialTotals(0d, 0d, 0d);
+
+    public ProjectMaterialTotals plus(ProjectMaterialTotals other) {
+        return new ProjectMaterialTotals(
+            orderedQty + other.orderedQty,
+            receivedQty + other.receivedQty,
+            issuedQty + other.issuedQty
+        );
+    }
+
+    public double balanceQty() {
+        return Math.max(0d, receivedQty - issuedQty);
+    }
+}
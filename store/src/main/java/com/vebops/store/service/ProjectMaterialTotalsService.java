@@ -0,0 +1,213 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.BomLineDto;
+import com.vebops.store.model.BomLine;
+import com.vebops.store.model.Material;
+import com.vebops.store.model.Project;
+import com.vebops.store.model.ProjectMaterialBalance;
+import com.vebops.store.repository.BomLineRepository;
+import com.vebops.store.repository.InwardLineRepository;
+import com.vebops.store.repository.OutwardLineRepository;
+import com.vebops.store.repository.ProjectMaterialBalanceRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads ordered / received / issued totals for many (project, material) pairs at once from the
+ * {@link ProjectMaterialBalance} ledger, so the number of round-trips does not depend on how many
+ * BOM lines are read. {@link #totalsFromHistory(Long)} recomputes the same figures from the movement
+ * lines and is only used to rebuild the ledger.
+ */
+@Service
+public class ProjectMaterialTotalsService {
+
+    private final BomLineRepository bomLineRepository;
+    private final InwardLineRepository inwardLineRepository;
+    private final OutwardLineRepository outwardLineRepository;
+    private final ProjectMaterialBalanceRepository balanceRepository;
+
+    public ProjectMaterialTotalsService(
+        BomLineRepository bomLineRepository,
+        InwardLineRepository inwardLineRepository,
+        OutwardLineRepository outwardLineRepository,
+        ProjectMaterialBalanceRepository balanceRepository
+    ) {
+        this.bomLineRepository = bomLineRepository;
+        this.inwardLineRepository = inwardLineRepository;
+        this.outwardLineRepository = outwardLineRepository;
+        this.balanceRepository = balanceRepository;
+    }
+
+    /**
+     * Totals for every (project, material) pair of the given projects. A {@code null} project
+     * collection means all projects.
+     */
+    public Map<ProjectMaterialKey, ProjectMaterialTotals> totalsForProjects(Collection<Long> projectIds) {
+        if (projectIds == null) {
+            return toTotals(balanceRepository.findAll());
+        }
+        if (projectIds.isEmpty()) {
+            return Map.of();
+        }
+        return toTotals(balanceRepository.findByProjectIdIn(projectIds));
+    }
+
+    public Map<ProjectMaterialKey, ProjectMaterialTotals> totalsFor(
+        Collection<Long> projectIds,
+        Collection<Long> materialIds
+    ) {
+        if (projectIds == null || projectIds.isEmpty() || materialIds == null || materialIds.isEmpty()) {
+            return Map.of();
+        }
+        return toTotals(balanceRepository.findByProjectIdInAndMaterialIdIn(projectIds, materialIds));
+    }
+
+    /**
+     * Totals for every (project, material) pair with movements, summed from the inward and outward
+     * lines in two grouped queries.
+     */
+    public Map<ProjectMaterialKey, ProjectMaterialTotals> totalsFromHistory(Long projectId) {
+        return merge(
+            inwardLineRepository.sumQuantitiesGroupedByMaterialForProject(projectId),
+            outwardLineRepository.sumIssuedQtyGroupedByMaterialForProject(projectId)
+        );
+    }
+
+    public ProjectMaterialTotals totalsFor(Long projectId, Long materialId) {
+        if (projectId == null || materialId == null) {
+            return ProjectMaterialTotals.EMPTY;
+        }
+        return totalsFor(List.of(projectId), List.of(materialId))
+            .getOrDefault(new ProjectMaterialKey(projectId, materialId), ProjectMaterialTotals.EMPTY);
+    }
+
+    /**
+     * BOM lines with their totals, grouped by project id. Every requested project gets an entry,
+     * even when it has no allocations. A {@code null} project collection means all projects, in
+     * which case only projects with allocations are present.
+     */
+    public Map<Long, List<BomLineDto>> bomLinesByProject(Collection<Long> projectIds) {
+        Map<Long, List<BomLineDto>> result = new LinkedHashMap<>();
+        List<BomLine> lines;
+        if (projectIds == null) {
+            lines = bomLineRepository.findAllWithProjectAndMaterial();
+        } else {
+            projectIds.forEach(id -> result.put(id, new ArrayList<>()));
+            if (projectIds.isEmpty()) {
+                return result;
+            }
+            lines = bomLineRepository.findByProjectIdIn(projectIds);
+        }
+        Map<ProjectMaterialKey, ProjectMaterialTotals> totals = totalsForProjects(projectIds);
+        for (BomLine line : lines) {
+            Long projectId = line.getProject() != null ? line.getProject().getId() : null;
+            result
+                .computeIfAbsent(projectId, id -> new ArrayList<>())
+                .add(toBomLineDto(line, totals.getOrDefault(keyOf(line), ProjectMaterialTotals.EMPTY)));
+        }
+        return result;
+    }
+
+    /**
+     * BOM lines with their totals for the given (project, material) pairs. Pairs without a BOM line
+     * are skipped.
+     */
+    public List<BomLineDto> bomLinesFor(Collection<ProjectMaterialKey> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return List.of();
+        }
+        Set<ProjectMaterialKey> wanted = new HashSet<>(keys);
+        Set<Long> projectIds = new HashSet<>();
+        Set<Long> materialIds = new HashSet<>();
+        wanted.forEach(key -> {
+            projectIds.add(key.projectId());
+            materialIds.add(key.materialId());
+        });
+        Map<ProjectMaterialKey, ProjectMaterialTotals> totals = totalsFor(projectIds, materialIds);
+        List<BomLineDto> result = new ArrayList<>();
+        for (BomLine line : bomLineRepository.findByProjectIdIn(projectIds)) {
+            ProjectMaterialKey key = keyOf(line);
+            if (key != null && wanted.contains(key)) {
+                result.add(toBomLineDto(line, totals.getOrDefault(key, ProjectMaterialTotals.EMPTY)));
+            }
+        }
+        return result;
+    }
+
+    public BomLineDto toBomLineDto(BomLine line) {
+        ProjectMaterialKey key = keyOf(line);
+        ProjectMaterialTotals totals = key != null
+            ? totalsFor(key.projectId(), key.materialId())
+            : ProjectMaterialTotals.EMPTY;
+        return toBomLineDto(line, totals);
+    }
+
+    public BomLineDto toBomLineDto(BomLine line, ProjectMaterialTotals totals) {
+        Material material = line.getMaterial();
+        Project project = line.getProject();
+        return new BomLineDto(
+            line.getId() != null ? String.valueOf(line.getId()) : null,
+            project != null && project.getId() != null ? String.valueOf(project.getId()) : null,
+            material != null && material.getId() != null ? String.valueOf(material.getId()) : null,
+            material != null ? material.getCode() : null,
+            material != null ? material.getName() : null,
+            material != null ? material.getPartNo() : null,
+            material != null ? material.getLineType() : null,
+            material != null ? material.getUnit() : null,
+            material != null ? material.getCategory() : null,
+            line.getQuantity(),
+            line.getQuantity(),
+            totals.orderedQty(),
+            totals.receivedQty(),
+            totals.issuedQty(),
+            totals.balanceQty()
+        );
+    }
+
+    private ProjectMaterialKey keyOf(BomLine line) {
+        if (line.getProject() == null || line.getMaterial() == null) {
+            return null;
+        }
+        return new ProjectMaterialKey(line.getProject().getId(), line.getMaterial().getId());
+    }
+
+    private Map<ProjectMaterialKey, ProjectMaterialTotals> toTotals(List<ProjectMaterialBalance> balances) {
+        Map<ProjectMaterialKey, ProjectMaterialTotals> totals = new HashMap<>();
+        for (ProjectMaterialBalance balance : balances) {
+            totals.put(
+                new ProjectMaterialKey(balance.getProject().getId(), balance.getMaterial().getId()),
+                new ProjectMaterialTotals(balance.getOrderedQty(), balance.getReceivedQty(), balance.getIssuedQty())
+            );
+        }
+        return totals;
+    }
+
+    private Map<ProjectMaterialKey, ProjectMaterialTotals> merge(List<Object[]> inwardRows, List<Object[]> issuedRows) {
+        Map<ProjectMaterialKey, ProjectMaterialTotals> totals = new HashMap<>();
+        for (Object[] row : inwardRows) {
+            ProjectMaterialKey key = new ProjectMaterialKey(toLong(row[0]), toLong(row[1]));
+            totals.put(key, new ProjectMaterialTotals(toDouble(row[2]), toDouble(row[3]), 0d));
+        }
+        for (Object[] row : issuedRows) {
+            ProjectMaterialKey key = new ProjectMaterialKey(toLong(row[0]), toLong(row[1]));
+            ProjectMaterialTotals current = totals.getOrDefault(key, ProjectMaterialTotals.EMPTY);
+            totals.put(key, new ProjectMaterialTotals(current.orderedQty(), current.receivedQty(), toDouble(row[2])));
+        }
+        return totals;
+    }
+
+    private Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0d;
+    }
+}
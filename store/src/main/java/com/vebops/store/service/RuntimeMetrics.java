@@ -0,0 +1,58 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.MetricDto;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory timers and counters since startup, exposed to admins through {@code /api/admin/metrics}.
+ */
+@Component
+public class RuntimeMetrics {
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final Map<String, Stat> stats = new ConcurrentHashMap<>();
+
+    public void record(String name, long nanos) {
+        Stat stat = stats.computeIfAbsent(name, key -> new Stat());
+        stat.count.increment();
+        stat.totalNanos.add(nanos);
+        stat.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public void increment(String name) {
+        stats.computeIfAbsent(name, key -> new Stat()).count.increment();
+    }
+
+    public List<MetricDto> snapshot() {
+        return stats
+            .entrySet()
+            .stream()
+            .sorted(Map.Entry.comparingByKey(Comparator.naturalOrder()))
+            .map(entry -> {
+                Stat stat = entry.getValue();
+                long count = stat.count.sum();
+                double total = stat.totalNanos.sum() / NANOS_PER_MILLI;
+                return new MetricDto(
+                    entry.getKey(),
+                    count,
+                    total,
+                    count > 0 ? total / count : 0d,
+                    stat.maxNanos.get() / NANOS_PER_MILLI
+                );
+            })
+            .toList();
+    }
+
+    private static final class Stat {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+    }
+}
@@ -0,0 +1,44 @@
+package com.vebops.store.service;
+
+import com.vebops.store.repository.InwardRecordRepository;
+import com.vebops.store.repository.OutwardRegisterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Derives the stock movement journal from the inward and outward lines the first time the
+ * application starts against a database that predates it.
+ */
+@Component
+public class StockJournalInitializer implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StockJournalInitializer.class);
+
+    private final StockJournalService journalService;
+    private final InwardRecordRepository inwardRecordRepository;
+    private final OutwardRegisterRepository outwardRegisterRepository;
+
+    public StockJournalInitializer(
+        StockJournalService journalService,
+        InwardRecordRepository inwardRecordRepository,
+        OutwardRegisterRepository outwardRegisterRepository
+    ) {
+        this.journalService = journalService;
+        this.inwardRecordRepository = inwardRecordRepository;
+        this.outwardRegisterRepository = outwardRegisterRepository;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!journalService.isEmpty()) {
+            return;
+        }
+        if (inwardRecordRepository.count() == 0 && outwardRegisterRepository.count() == 0) {
+            return;
+        }
+        int rows = journalService.rebuild();
+        log.info("Built stock movement journal with {} rows", rows);
+    }
+}
@@ -0,0 +1,249 @@
+package com.vebops.store.service;
+
+import com.vebops.store.model.StockMovement;
+import com.vebops.store.model.StockMovementType;
+import com.vebops.store.model.StockSnapshot;
+import com.vebops.store.repository.InwardLineRepository;
+import com.vebops.store.repository.OutwardLineRepository;
+import com.vebops.store.repository.ProjectRepository;
+import com.vebops.store.repository.StockMovementRepository;
+import com.vebops.store.repository.StockSnapshotRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the stock movement journal and its month-end snapshots. Every stock write appends its
+ * deltas here; the totals of a project on any date are then the latest snapshot on or before that
+ * date plus the journal tail after it. A movement dated on or before an existing snapshot drops the
+ * project's snapshots from that date on, and the next checkpoint takes them again. Appends hold a
+ * shared lock on the project row until they commit and a checkpoint holds an exclusive one, so a
+ * checkpoint never reads the journal while a movement it would miss is still in flight.
+ */
+@Service
+public class StockJournalService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockJournalService.class);
+
+    private final StockMovementRepository movementRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final InwardLineRepository inwardLineRepository;
+    private final OutwardLineRepository outwardLineRepository;
+    private final ProjectRepository projectRepository;
+    private final TransactionTemplate writeTx;
+
+    public StockJournalService(
+        StockMovementRepository movementRepository,
+        StockSnapshotRepository snapshotRepository,
+        InwardLineRepository inwardLineRepository,
+        OutwardLineRepository outwardLineRepository,
+        ProjectRepository projectRepository,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.movementRepository = movementRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.inwardLineRepository = inwardLineRepository;
+        this.outwardLineRepository = outwardLineRepository;
+        this.projectRepository = projectRepository;
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.writeTx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    /**
+     * Journals the per-material deltas of one document. Runs in the caller's transaction, which must
+     * read committed data; a caller appending for several projects does so in ascending project id.
+     */
+    public void append(
+        StockMovementType type,
+        Long sourceId,
+        Long projectId,
+        LocalDate date,
+        Map<Long, ProjectMaterialTotals> deltas
+    ) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        projectRepository.lockSharedById(projectId);
+        if (snapshotRepository.existsByProjectIdAndSnapshotDateGreaterThanEqual(projectId, date)) {
+            snapshotRepository.deleteFrom(projectId, date);
+        }
+        List<StockMovement> movements = new ArrayList<>(deltas.size());
+        addMovements(movements, type, sourceId, projectId, date, deltas);
+        movementRepository.saveAll(movements);
+    }
+
+    private void addMovements(
+        List<StockMovement> movements,
+        StockMovementType type,
+        Long sourceId,
+        Long projectId,
+        LocalDate date,
+        Map<Long, ProjectMaterialTotals> deltas
+    ) {
+        LocalDateTime now = LocalDateTime.now();
+        deltas.forEach((materialId, delta) -> {
+            StockMovement movement = new StockMovement();
+            movement.setProjectId(projectId);
+            movement.setMaterialId(materialId);
+            movement.setMovementDate(date);
+            movement.setType(type);
+            movement.setSourceId(sourceId);
+            movement.setOrderedQty(delta.orderedQty());
+            movement.setReceivedQty(delta.receivedQty());
+            movement.setIssuedQty(delta.issuedQty());
+            movement.setRecordedAt(now);
+            movements.add(movement);
+        });
+    }
+
+    /** Totals per material of the project including every movement dated on or before {@code asOf}. */
+    public Map<Long, ProjectMaterialTotals> totalsAsOf(Long projectId, LocalDate asOf) {
+        LocalDate snapshotDate = snapshotRepository.findLatestSnapshotDate(projectId, asOf);
+        Map<Long, ProjectMaterialTotals> totals = snapshotTotals(projectId, snapshotDate);
+        addMovements(totals, projectId, snapshotDate, asOf);
+        return totals;
+    }
+
+    public boolean isEmpty() {
+        return movementRepository.count() == 0;
+    }
+
+    /** Closes every month that ended before today. */
+    @Scheduled(cron = "${app.stock.snapshot-cron:0 15 1 * * *}")
+    public void closeMonths() {
+        int rows = checkpoint(LocalDate.now().withDayOfMonth(1).minusDays(1));
+        if (rows > 0) {
+            log.info("Took {} stock snapshot rows", rows);
+        }
+    }
+
+    /** Takes the missing month-end snapshots of every project up to {@code upTo}. */
+    public int checkpoint(LocalDate upTo) {
+        int rows = 0;
+        for (Long projectId : movementRepository.findProjectIds()) {
+            try {
+                Integer written = writeTx.execute(status -> checkpointProject(projectId, upTo));
+                rows += written != null ? written : 0;
+            } catch (DataIntegrityViolationException ex) {
+                // Another node took the same snapshots first
+                log.debug("Skipped stock snapshot of project {}", projectId);
+            }
+        }
+        return rows;
+    }
+
+    /** Replaces the journal and its snapshots with movements derived from the inward and outward lines. */
+    @Transactional
+    public int rebuild() {
+        snapshotRepository.deleteAllInBatch();
+        movementRepository.deleteAllInBatch();
+        List<StockMovement> movements = new ArrayList<>();
+        for (Object[] row : inwardLineRepository.sumQuantitiesGroupedByRecordAndMaterial()) {
+            addMovements(
+                movements,
+                StockMovementType.INWARD,
+                toLong(row[0]),
+                toLong(row[1]),
+                (LocalDate) row[3],
+                Map.of(toLong(row[2]), new ProjectMaterialTotals(toDouble(row[4]), toDouble(row[5]), 0d))
+            );
+        }
+        for (Object[] row : outwardLineRepository.sumIssuedQtyGroupedByRegisterAndMaterial()) {
+            addMovements(
+                movements,
+                StockMovementType.OUTWARD,
+                toLong(row[0]),
+                toLong(row[1]),
+                (LocalDate) row[3],
+                Map.of(toLong(row[2]), new ProjectMaterialTotals(0d, 0d, toDouble(row[4])))
+            );
+        }
+        movementRepository.saveAll(movements);
+        return movements.size();
+    }
+
+    private int checkpointProject(Long projectId, LocalDate upTo) {
+        projectRepository.lockById(projectId);
+        LocalDate previous = snapshotRepository.findLatestSnapshotDate(projectId, upTo);
+        LocalDate closing;
+        if (previous != null) {
+            closing = monthEnd(previous.plusDays(1));
+        } else {
+            LocalDate first = movementRepository.findFirstMovementDate(projectId);
+            if (first == null) {
+                return 0;
+            }
+            closing = monthEnd(first);
+        }
+
+        Map<Long, ProjectMaterialTotals> totals = snapshotTotals(projectId, previous);
+        int rows = 0;
+        while (!closing.isAfter(upTo)) {
+            addMovements(totals, projectId, previous, closing);
+            List<StockSnapshot> snapshots = new ArrayList<>(totals.size());
+            LocalDate snapshotDate = closing;
+            totals.forEach((materialId, total) -> {
+                StockSnapshot snapshot = new StockSnapshot();
+                snapshot.setProjectId(projectId);
+                snapshot.setMaterialId(materialId);
+                snapshot.setSnapshotDate(snapshotDate);
+                snapshot.setOrderedQty(total.orderedQty());
+                snapshot.setReceivedQty(total.receivedQty());
+                snapshot.setIssuedQty(total.issuedQty());
+                snapshots.add(snapshot);
+            });
+            snapshotRepository.saveAll(snapshots);
+            rows += snapshots.size();
+            previous = closing;
+            closing = monthEnd(closing.plusDays(1));
+        }
+        return rows;
+    }
+
+    private Map<Long, ProjectMaterialTotals> snapshotTotals(Long projectId, LocalDate snapshotDate) {
+        Map<Long, ProjectMaterialTotals> totals = new HashMap<>();
+        if (snapshotDate != null) {
+            snapshotRepository
+                .findByProjectIdAndSnapshotDate(projectId, snapshotDate)
+                .forEach(snapshot ->
+                    totals.put(
+                        snapshot.getMaterialId(),
+                        new ProjectMaterialTotals(snapshot.getOrderedQty(), snapshot.getReceivedQty(), snapshot.getIssuedQty())
+                    )
+                );
+        }
+        return totals;
+    }
+
+    private void addMovements(Map<Long, ProjectMaterialTotals> totals, Long projectId, LocalDate after, LocalDate upTo) {
+        for (Object[] row : movementRepository.sumByMaterial(projectId, after, upTo)) {
+            ProjectMaterialTotals delta = new ProjectMaterialTotals(toDouble(row[1]), toDouble(row[2]), toDouble(row[3]));
+            totals.merge(toLong(row[0]), delta, ProjectMaterialTotals::plus);
+        }
+    }
+
+    private static LocalDate monthEnd(LocalDate date) {
+        return date.with(TemporalAdjusters.lastDayOfMonth());
+    }
+
+    private static Long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+
+    private static double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0d;
+    }
+}
@@ -0,0 +1,92 @@
+package com.vebops.store.service;
+
+import com.vebops.store.exception.BadRequestException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Striped locks for stock writes, keyed by (project, material) pairs and by any other value a writer
+ * must own, such as a project's outward register for a day. A request locks all of its keys at once,
+ * in ascending stripe order, before its first read and keeps them until its transaction completes, so
+ * writers that share a key serialise while unrelated writers run in parallel. Locks are reentrant,
+ * which lets a transfer lock both projects up front and then run its outward and inward legs. They
+ * only order writers within this process; the row locks taken by the writers keep other nodes out.
+ */
+@Component
+public class StockLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutMillis;
+    private final RuntimeMetrics metrics;
+
+    public StockLockManager(
+        RuntimeMetrics metrics,
+        @Value("${app.stock.lock-stripes:1024}") int stripeCount,
+        @Value("${app.stock.lock-timeout-ms:10000}") long timeoutMillis
+    ) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutMillis = timeoutMillis;
+        this.metrics = metrics;
+    }
+
+    public void lockUntilCompletion(Collection<?> keys) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Stock locks require an active transaction");
+        }
+        TreeSet<Integer> ordered = new TreeSet<>();
+        keys.forEach(key -> ordered.add(stripeOf(key)));
+
+        List<ReentrantLock> held = new ArrayList<>(ordered.size());
+        long started = System.nanoTime();
+        try {
+            for (int index : ordered) {
+                ReentrantLock lock = stripes[index];
+                if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    metrics.increment("stock.lock.timeout");
+                    throw new BadRequestException("Stock for these materials is being updated by another request. Please retry.");
+                }
+                held.add(lock);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            unlock(held);
+            throw new IllegalStateException("Interrupted while waiting for stock locks", ex);
+        } catch (RuntimeException ex) {
+            unlock(held);
+            throw ex;
+        }
+        metrics.record("stock.lock.wait", System.nanoTime() - started);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unlock(held);
+            }
+        });
+    }
+
+    private int stripeOf(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void unlock(List<ReentrantLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+    }
+}
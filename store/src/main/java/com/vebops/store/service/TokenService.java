@@ -2,25 +2,44 @@ package com.vebops.store.service;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * Issues and verifies the HS256 tokens sent as X-Auth-Token. Verification uses one prebuilt parser,
+ * and tokens that verified recently are remembered by their SHA-256 digest together with subject and
+ * expiry, so a repeat request costs a digest and a map lookup instead of an HMAC check and claims
+ * parsing. The expiry is still checked on every hit. Only successful verifications are cached.
+ */
 @Service
 public class TokenService {
 
+    private record Verified(Long userId, long expiresAtMillis) {}
+
     private final Key signingKey;
     private final long ttlSeconds;
+    private final JwtParser parser;
+    private final RuntimeMetrics metrics;
+    private final Map<String, Verified> verified;
 
     public TokenService(
+        RuntimeMetrics metrics,
         @Value("${app.jwt.secret:inventory-secret-key}") String secret,
-        @Value("${app.jwt.ttl-seconds:86400}") long ttlSeconds
+        @Value("${app.jwt.ttl-seconds:86400}") long ttlSeconds,
+        @Value("${app.jwt.cache.max-entries:10000}") int maxCachedTokens
     ) {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         if (keyBytes.length < 32) {
@@ -31,6 +50,14 @@ public class TokenService {
             this.signingKey = Keys.hmacShaKeyFor(keyBytes);
         }
         this.ttlSeconds = ttlSeconds > 0 ? ttlSeconds : 86400;
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.metrics = metrics;
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+                return size() > maxCachedTokens;
+            }
+        };
     }
 
     public String issueToken(Long userId) {
@@ -45,15 +72,48 @@ public class TokenService {
     }
 
     public Long resolveUserId(String token) {
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        synchronized (verified) {
+            Verified cached = verified.get(digest);
+            if (cached != null) {
+                if (cached.expiresAtMillis() > now) {
+                    metrics.increment("auth.token.hit");
+                    return cached.userId();
+                }
+                verified.remove(digest);
+            }
+        }
+        metrics.increment("auth.token.miss");
         try {
-            Claims claims = Jwts.parserBuilder().setSigningKey(signingKey).build().parseClaimsJws(token).getBody();
-            return Long.valueOf(claims.getSubject());
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Long userId = Long.valueOf(claims.getSubject());
+            // Tokens without an expiry are only cached for the issuing TTL
+            long expiresAt = claims.getExpiration() != null
+                ? claims.getExpiration().getTime()
+                : now + ttlSeconds * 1000;
+            synchronized (verified) {
+                verified.put(digest, new Verified(userId, expiresAt));
+            }
+            return userId;
         } catch (JwtException | IllegalArgumentException ex) {
             return null;
         }
     }
 
     public void revoke(String token) {
-        // JWTs are stateless; nothing to do for logout hooks.
+        // JWTs are stateless; dropping the cached verification is all logout can do.
+        synchronized (verified) {
+            verified.remove(digest(token));
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
     }
 }
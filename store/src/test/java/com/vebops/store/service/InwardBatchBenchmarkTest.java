@@ -0,0 +1,115 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vebops.store.dto.CreateProjectRequest;
+import com.vebops.store.dto.InwardLineRequest;
+import com.vebops.store.dto.InwardRequest;
+import com.vebops.store.dto.ProjectDto;
+import com.vebops.store.model.Material;
+import com.vebops.store.repository.MaterialRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Statements and throughput of a 300-line GRN against in-memory H2. Excluded from the default build;
+ * run it with {@code mvn test -Pbenchmark}. H2 has no network round trip, so the throughput is a lower
+ * bound for what batching saves on MySQL; the statement count is the portable figure. The report
+ * repeats the figures measured the same way before batching, when IDENTITY ids forced one insert
+ * per line.
+ */
+@Tag("benchmark")
+@SpringBootTest(
+    properties = {
+        "spring.datasource.url=jdbc:h2:mem:inward-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+    }
+)
+class InwardBatchBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InwardBatchBenchmarkTest.class);
+
+    private static final int LINES = 300;
+    private static final int WARMUP_RUNS = 3;
+    private static final int RUNS = 20;
+    private static final long IDENTITY_BASELINE_STATEMENTS_PER_GRN = 1506;
+    private static final long IDENTITY_BASELINE_LINES_PER_SECOND = 1500;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private BomService bomService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void registerInwardBatchesLineInserts() {
+        ProjectDto project = adminService.createProject(new CreateProjectRequest("BENCH", "Benchmark"));
+        List<Material> materials = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            Material material = new Material();
+            material.setCode("BENCH-" + i);
+            material.setName("Benchmark material " + i);
+            material.setUnit("nos");
+            materials.add(material);
+        }
+        materialRepository.saveAll(materials);
+        for (Material material : materials) {
+            bomService.assignQuantity(project.id(), String.valueOf(material.getId()), 1_000_000);
+        }
+        List<InwardLineRequest> lines = materials
+            .stream()
+            .map(material -> new InwardLineRequest(String.valueOf(material.getId()), 1, 1))
+            .toList();
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            inventoryService.registerInward(grn(project, lines));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long started = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            inventoryService.registerInward(grn(project, lines));
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long statementsPerGrn = statistics.getPrepareStatementCount() / RUNS;
+
+        log.info(
+            "inward benchmark: {} GRNs x {} lines, {} prepared statements per GRN, {} lines/s " +
+            "(IDENTITY baseline: {} statements per GRN, {} lines/s)",
+            RUNS,
+            LINES,
+            statementsPerGrn,
+            Math.round(RUNS * LINES / seconds),
+            IDENTITY_BASELINE_STATEMENTS_PER_GRN,
+            IDENTITY_BASELINE_LINES_PER_SECOND
+        );
+        // One statement per line would mean the inserts are no longer batched
+        assertThat(statementsPerGrn).isLessThan(LINES);
+    }
+
+    private static InwardRequest grn(ProjectDto project, List<InwardLineRequest> lines) {
+        return new InwardRequest(null, project.id(), null, "BENCH", null, null, null, null, "Supplier", lines);
+    }
+}
@@ -0,0 +1,88 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vebops.store.model.Material;
+import com.vebops.store.repository.MaterialRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/** Runs against H2, so it covers the in-memory ranking that mirrors MySQL's MATCH ... AGAINST. */
+@SpringBootTest(
+    properties = {
+        "spring.datasource.url=jdbc:h2:mem:full-text-search;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+    }
+)
+class MaterialFullTextSearchTest {
+
+    @Autowired
+    private MaterialFullTextSearch fullTextSearch;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    private Material copperCable;
+    private Material aluminiumCable;
+    private Material copperLug;
+
+    @BeforeEach
+    void createMaterials() {
+        materialRepository.deleteAll();
+        copperCable = save("FT-CU-4", "Copper cable 4 sq mm", "Electrical");
+        aluminiumCable = save("FT-AL-4", "Aluminium cable 4 sq mm", "Electrical");
+        copperLug = save("FT-CU-L", "Copper lug", "Electrical");
+        save("FT-CEM", "Cement bag", "Civil");
+    }
+
+    @Test
+    void naturalModeRanksMaterialsMatchingMoreWordsFirst() {
+        MaterialFullTextSearch.Result result = fullTextSearch.search("copper cable", MaterialFullTextSearch.Mode.NATURAL, 0, 10);
+
+        assertThat(result.total()).isEqualTo(3);
+        assertThat(ids(result)).containsExactly(copperCable.getId(), aluminiumCable.getId(), copperLug.getId());
+        assertThat(result.hits().get(0).score()).isGreaterThan(result.hits().get(1).score());
+    }
+
+    @Test
+    void booleanModeAppliesRequiredExcludedAndPrefixOperators() {
+        MaterialFullTextSearch.Result cableWithoutCopper = fullTextSearch.search("+cable -copper", MaterialFullTextSearch.Mode.BOOLEAN, 0, 10);
+        assertThat(ids(cableWithoutCopper)).containsExactly(aluminiumCable.getId());
+
+        MaterialFullTextSearch.Result copperPrefix = fullTextSearch.search("cop*", MaterialFullTextSearch.Mode.BOOLEAN, 0, 10);
+        assertThat(ids(copperPrefix)).containsExactly(copperCable.getId(), copperLug.getId());
+    }
+
+    @Test
+    void booleanModeIgnoresStraySyntax() {
+        assertThat(fullTextSearch.search("\"", MaterialFullTextSearch.Mode.BOOLEAN, 0, 10).total()).isZero();
+        assertThat(fullTextSearch.search("@lug", MaterialFullTextSearch.Mode.BOOLEAN, 0, 10).hits())
+            .extracting(MaterialFullTextSearch.Hit::id)
+            .containsExactly(copperLug.getId());
+    }
+
+    @Test
+    void booleanQueryKeepsOnlyWordsAndSupportedOperators() {
+        assertThat(MaterialFullTextSearch.booleanQuery("+cable -copper cop*")).isEqualTo("+cable -copper cop*");
+        assertThat(MaterialFullTextSearch.booleanQuery("@\"lug (sq)")).isEqualTo("lug sq");
+        assertThat(MaterialFullTextSearch.booleanQuery("\" @ ~")).isEmpty();
+    }
+
+    private Material save(String code, String name, String category) {
+        Material material = new Material();
+        material.setCode(code);
+        material.setName(name);
+        material.setCategory(category);
+        return materialRepository.save(material);
+    }
+
+    private static List<Long> ids(MaterialFullTextSearch.Result result) {
+        return result.hits().stream().map(MaterialFullTextSearch.Hit::id).toList();
+    }
+}